@@ -0,0 +1,53 @@
+package jsignals.benchmarks;
+
+import jsignals.core.ComputedRef;
+import jsignals.core.Ref;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a write followed by a read at the end of a chain of computed values, where every link
+ * depends on the previous one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComputedChainBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int depth;
+
+    private Ref<Integer> root;
+
+    private ComputedRef<Integer> tail;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        root = new Ref<>(0);
+
+        ComputedRef<Integer> link = new ComputedRef<>(() -> root.get() + 1);
+        for (int i = 1; i < depth; i++) {
+            ComputedRef<Integer> previous = link;
+            link = new ComputedRef<>(() -> previous.get() + 1);
+        }
+        tail = link;
+    }
+
+    @Benchmark
+    public int setAndRead() {
+        root.set(++next);
+        return tail.get();
+    }
+
+    @Benchmark
+    public int cleanRead() {
+        return tail.get();
+    }
+
+}
@@ -0,0 +1,57 @@
+package jsignals.benchmarks;
+
+import jsignals.core.ComputedRef;
+import jsignals.core.Ref;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a write propagating through a diamond: a ref read by several computed values, which
+ * are all read by a single computed value at the bottom.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiamondBenchmark {
+
+    @Param({"2", "10", "100"})
+    private int sides;
+
+    private Ref<Integer> top;
+
+    private ComputedRef<Integer> bottom;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        top = new Ref<>(0);
+
+        List<ComputedRef<Integer>> middle = new ArrayList<>(sides);
+        for (int i = 0; i < sides; i++) {
+            int offset = i;
+            middle.add(new ComputedRef<>(() -> top.get() + offset));
+        }
+
+        bottom = new ComputedRef<>(() -> {
+            int sum = 0;
+            for (ComputedRef<Integer> side : middle) {
+                sum += side.get();
+            }
+            return sum;
+        });
+    }
+
+    @Benchmark
+    public int setAndRead() {
+        top.set(++next);
+        return bottom.get();
+    }
+
+}
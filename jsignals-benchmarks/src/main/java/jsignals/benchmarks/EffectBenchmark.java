@@ -0,0 +1,55 @@
+package jsignals.benchmarks;
+
+import jsignals.core.Disposable;
+import jsignals.core.Ref;
+import jsignals.runtime.EffectRunner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a write that re-runs the effects depending on the written ref.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EffectBenchmark {
+
+    @Param({"1", "100"})
+    private int effects;
+
+    private Ref<Integer> ref;
+
+    private final List<Disposable> handles = new ArrayList<>();
+
+    private int next;
+
+    private int observed;
+
+    @Setup
+    public void setup() {
+        EffectRunner runner = new EffectRunner();
+        ref = new Ref<>(0);
+        for (int i = 0; i < effects; i++) {
+            handles.add(runner.runEffect(() -> observed += ref.get()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        handles.forEach(Disposable::dispose);
+        handles.clear();
+    }
+
+    @Benchmark
+    public int setAndRerun() {
+        ref.set(++next);
+        return observed;
+    }
+
+}
@@ -0,0 +1,52 @@
+package jsignals.benchmarks;
+
+import jsignals.core.ComputedRef;
+import jsignals.core.Ref;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a write to a ref read by many computed values, followed by reading all of them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FanOutBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int width;
+
+    private Ref<Integer> root;
+
+    private List<ComputedRef<Integer>> leaves;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        root = new Ref<>(0);
+        leaves = new ArrayList<>(width);
+        for (int i = 0; i < width; i++) {
+            int offset = i;
+            leaves.add(new ComputedRef<>(() -> root.get() + offset));
+        }
+    }
+
+    @Benchmark
+    public int setAndReadAll() {
+        root.set(++next);
+
+        int sum = 0;
+        for (ComputedRef<Integer> leaf : leaves) {
+            sum += leaf.get();
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,41 @@
+package jsignals.benchmarks;
+
+import jsignals.core.ListRef;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of adding to a large list ref. Each operation removes the element again, so the list
+ * keeps its size for the whole run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListRefBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private ListRef<Integer> list;
+
+    private int observed;
+
+    @Setup
+    public void setup() {
+        list = new ListRef<>(Collections.nCopies(size, 0));
+        list.watch(value -> observed += value.size());
+    }
+
+    @Benchmark
+    public int addAndRemove() {
+        list.add(1);
+        list.removeAt(size);
+        return observed;
+    }
+
+}
@@ -0,0 +1,54 @@
+package jsignals.benchmarks;
+
+import jsignals.core.IntRef;
+import jsignals.core.Ref;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a write to a ref, depending on how many watchers it notifies.
+ * The primitive variant shows what boxing the value costs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RefSetBenchmark {
+
+    @Param({"0", "1", "100", "10000"})
+    private int watchers;
+
+    private Ref<Integer> ref;
+
+    private IntRef intRef;
+
+    private int next;
+
+    private int observed;
+
+    @Setup
+    public void setup() {
+        ref = new Ref<>(0);
+        intRef = new IntRef(0);
+        for (int i = 0; i < watchers; i++) {
+            ref.watch((Integer value) -> observed += value);
+            intRef.watch((int value) -> observed += value);
+        }
+    }
+
+    @Benchmark
+    public int set() {
+        ref.set(++next);
+        return observed;
+    }
+
+    @Benchmark
+    public int setIntRef() {
+        intRef.set(++next);
+        return observed;
+    }
+
+}
@@ -0,0 +1,53 @@
+package jsignals.benchmarks;
+
+import jsignals.async.ResourceRef;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of resource fetches. The fetcher completes immediately and results are handled on
+ * the calling thread, so the numbers show the overhead of the resource itself.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResourceRefBenchmark {
+
+    private ResourceRef<Integer> resource;
+
+    private ResourceRef<Integer> debounced;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        resource = new ResourceRef<>(() -> CompletableFuture.completedFuture(++next), false, Runnable::run, Duration.ZERO);
+        debounced = new ResourceRef<>(() -> CompletableFuture.completedFuture(++next), false, Runnable::run, Duration.ofMillis(1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        debounced.cancel();
+    }
+
+    @Benchmark
+    public Integer fetch() {
+        return resource.fetch().join();
+    }
+
+    /**
+     * Every call cancels the pending fetch and schedules a new one, as a stream of keystrokes
+     * feeding a debounced search would.
+     */
+    @Benchmark
+    public CompletableFuture<Integer> debouncedFetch() {
+        return debounced.fetch();
+    }
+
+}
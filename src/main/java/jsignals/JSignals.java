@@ -2,17 +2,28 @@ package jsignals;
 
 import jsignals.async.ResourceRef;
 import jsignals.core.*;
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.EffectDispatch;
+import jsignals.runtime.EffectOptions;
 import jsignals.runtime.EffectRunner;
+import jsignals.runtime.ExecutionPolicy;
 import jsignals.runtime.JSignalsExecutor;
 import jsignals.runtime.JSignalsRuntime;
+import jsignals.runtime.ShutdownReport;
 import jsignals.util.JSignalsLogger;
 import org.slf4j.Logger;
 
 import java.time.Duration;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -38,13 +49,36 @@ public final class JSignals {
      * @return The newly created runtime.
      */
     public static JSignalsRuntime initRuntime() {
+        return initRuntime(EffectDispatch.INLINE);
+    }
+
+    /**
+     * Initializes the JSignals shared runtime, whose effects re-run as given. Must be called before
+     * using any other methods that rely on the default runtime.
+     *
+     * @param effectDispatch Where effects re-run after their dependencies change.
+     * @return The newly created runtime.
+     */
+    public static JSignalsRuntime initRuntime(EffectDispatch effectDispatch) {
+        return initRuntime(ExecutionPolicy.unbounded(), effectDispatch);
+    }
+
+    /**
+     * Initializes the JSignals shared runtime, whose tasks and effects run as given. Must be called
+     * before using any other methods that rely on the default runtime.
+     *
+     * @param executionPolicy How many tasks, like resource fetches, run at the same time.
+     * @param effectDispatch  Where effects re-run after their dependencies change.
+     * @return The newly created runtime.
+     */
+    public static JSignalsRuntime initRuntime(ExecutionPolicy executionPolicy, EffectDispatch effectDispatch) {
         synchronized (runtimeLock) {
             if (runtime != null) {
                 log.error("Runtime is already initialized.");
                 throw new IllegalStateException("JSignalsRuntime is already initialized.");
             }
 
-            runtime = new JSignalsRuntime();
+            runtime = JSignalsRuntime.forDefaultGraph(executionPolicy, effectDispatch);
             log.info("Runtime initialized.");
             return runtime;
         }
@@ -62,6 +96,25 @@ public final class JSignals {
         }
     }
 
+    /**
+     * Shuts down the shared JSignals runtime gracefully, giving the work in flight time to complete.
+     *
+     * @param timeout How long to wait for the work in flight.
+     * @return How much work was in flight, and how much had to be cancelled, or {@code null} if the
+     * runtime was not initialized.
+     * @see JSignalsRuntime#close(Duration)
+     */
+    public static ShutdownReport shutdownRuntime(Duration timeout) {
+        synchronized (runtimeLock) {
+            if (runtime == null) {
+                return null;
+            }
+            ShutdownReport report = runtime.close(timeout);
+            runtime = null;
+            return report;
+        }
+    }
+
     /**
      * Safely gets the active runtime, throwing an exception if it's not initialized.
      */
@@ -88,6 +141,14 @@ public final class JSignals {
         return getRuntime().getExecutor().submit(task);
     }
 
+    /**
+     * Queues the recomputation of an eager value on the shared runtime's recompute scheduler,
+     * which runs it on one of a bounded number of workers.
+     */
+    public static void scheduleRecompute(Runnable task) {
+        getRuntime().getRecomputeScheduler().execute(task);
+    }
+
     /**
      * Schedules a task to run after a delay using the shared runtime's scheduler.
      */
@@ -118,6 +179,14 @@ public final class JSignals {
         return new Ref<>(initialValue);
     }
 
+    /**
+     * Creates a reactive reference with an initial value and a custom equality strategy.
+     * Writes of a value that the strategy considers equal to the current one do not notify.
+     */
+    public static <T> Ref<T> ref(T initialValue, Equality<? super T> equality) {
+        return new Ref<>(initialValue, equality);
+    }
+
     /**
      * Creates a reactive reference with null initial value.
      */
@@ -132,6 +201,89 @@ public final class JSignals {
         return new ComputedRef<>(computation);
     }
 
+    /**
+     * Creates a computed value with a custom equality strategy. Results that the strategy
+     * considers equal to the cached value do not notify subscribers or dependents.
+     */
+    public static <T> ComputedRef<T> computed(Supplier<T> computation, Equality<? super T> equality) {
+        return new ComputedRef<>(computation, equality);
+    }
+
+    /**
+     * Declares the sources of a computed value or effect up front, e.g.
+     * {@code effect(on(a, b, c), () -> ...)}.
+     *
+     * @see Dependencies
+     */
+    public static Dependencies on(BaseRef... refs) {
+        return Dependencies.on(refs);
+    }
+
+    /**
+     * Creates a computed value that depends on the given sources only. It is wired to them once,
+     * and re-runs when one of them changes. Its runs are not tracked, so values it reads that were
+     * not declared never make it re-run.
+     */
+    public static <T> ComputedRef<T> computed(Dependencies dependencies, Supplier<T> computation) {
+        return new ComputedRef<>(dependencies, computation);
+    }
+
+    /**
+     * Creates a reactive {@code int} reference that never boxes its value.
+     */
+    public static IntRef intRef(int initialValue) {
+        return new IntRef(initialValue);
+    }
+
+    /**
+     * Creates a reactive {@code long} reference that never boxes its value.
+     */
+    public static LongRef longRef(long initialValue) {
+        return new LongRef(initialValue);
+    }
+
+    /**
+     * Creates a reactive {@code double} reference that never boxes its value.
+     */
+    public static DoubleRef doubleRef(double initialValue) {
+        return new DoubleRef(initialValue);
+    }
+
+    /**
+     * Creates a reactive {@code boolean} reference that never boxes its value.
+     */
+    public static BooleanRef booleanRef(boolean initialValue) {
+        return new BooleanRef(initialValue);
+    }
+
+    /**
+     * Creates a computed {@code int} value that never boxes its value.
+     */
+    public static ComputedIntRef computedInt(IntSupplier computation) {
+        return new ComputedIntRef(computation);
+    }
+
+    /**
+     * Creates a computed {@code long} value that never boxes its value.
+     */
+    public static ComputedLongRef computedLong(LongSupplier computation) {
+        return new ComputedLongRef(computation);
+    }
+
+    /**
+     * Creates a computed {@code double} value that never boxes its value.
+     */
+    public static ComputedDoubleRef computedDouble(DoubleSupplier computation) {
+        return new ComputedDoubleRef(computation);
+    }
+
+    /**
+     * Creates a computed {@code boolean} value that never boxes its value.
+     */
+    public static ComputedBooleanRef computedBoolean(BooleanSupplier computation) {
+        return new ComputedBooleanRef(computation);
+    }
+
     /**
      * Creates a computed value that automatically updates when dependencies change,
      * with an initial value.
@@ -222,10 +374,132 @@ public final class JSignals {
     }
 
     /**
-     * Creates an effect that re-runs when its dependencies change.
+     * Creates an effect that re-runs when its dependencies change. Effects re-run as configured
+     * for the shared runtime, or inline if it has not been initialized.
      */
     public static Disposable effect(Runnable effect) {
-        return effectRunner.runEffect(effect);
+        JSignalsRuntime r = runtime;
+        return (r != null ? r.getEffectRunner() : effectRunner).runEffect(effect);
+    }
+
+    /**
+     * Creates an effect that re-runs when its dependencies change, as scheduled by the given
+     * options, e.g. debounced or coalesced into frames.
+     */
+    public static Disposable effect(Runnable effect, EffectOptions options) {
+        JSignalsRuntime r = runtime;
+        return (r != null ? r.getEffectRunner() : effectRunner).runEffect(effect, options);
+    }
+
+    /**
+     * Creates an effect that re-runs when one of the given sources changes. It is wired to them
+     * once, and its runs are not tracked, so values it reads that were not declared never make it
+     * re-run.
+     */
+    public static Disposable effect(Dependencies dependencies, Runnable effect) {
+        return effect(dependencies, effect, EffectOptions.sync());
+    }
+
+    /**
+     * Creates an effect that re-runs when one of the given sources changes, as scheduled by the
+     * given options.
+     */
+    public static Disposable effect(Dependencies dependencies, Runnable effect, EffectOptions options) {
+        Objects.requireNonNull(dependencies, "Dependencies cannot be null");
+        JSignalsRuntime r = runtime;
+        return (r != null ? r.getEffectRunner() : effectRunner).runEffect(dependencies, effect, options);
+    }
+
+    /**
+     * Runs the effects that are waiting for the effect thread of the shared runtime, and returns
+     * once none are left. Does nothing if effects re-run inline.
+     */
+    public static void flush() {
+        JSignalsRuntime r = runtime;
+        if (r != null) {
+            r.flush();
+        }
+    }
+
+    /**
+     * Creates an ownership scope, and runs the body in it. Effects, computed values and watchers
+     * created by the body, and by the effects it creates, are disposed together with the scope.
+     * The scope is owned by the current scope, if any.
+     *
+     * @param body Creates what the scope owns. Receives the scope, to dispose it later.
+     * @return The scope, to dispose everything it owns at once.
+     */
+    public static Owner root(Consumer<Owner> body) {
+        return Owner.root(body);
+    }
+
+    /**
+     * Registers a hook that runs when the current effect or computed value re-runs or is disposed,
+     * or when the current scope is disposed. Does nothing, apart from logging a warning, if called
+     * outside of any.
+     */
+    public static void onCleanup(Runnable cleanup) {
+        Owner owner = Owner.current();
+        if (owner == null) {
+            log.warn("onCleanup() called outside of an effect, computed value or root scope; the cleanup will never run.");
+            return;
+        }
+        owner.onCleanup(cleanup);
+    }
+
+    /**
+     * Reads values of the default graph without tracking them, so the current computed value or
+     * effect does not re-run when they change, e.g. for values only used for logging or
+     * configuration. Use {@link JSignalsRuntime#untrack(Supplier)} for the graph of a runtime.
+     *
+     * @param read Reads the values, and returns what is needed from them.
+     * @return The value returned by the read.
+     */
+    public static <T> T untrack(Supplier<T> read) {
+        Objects.requireNonNull(read, "Read cannot be null");
+
+        DependencyTracker tracker = DependencyTracker.getInstance();
+        tracker.startUntracked();
+        try {
+            return read.get();
+        } finally {
+            tracker.stopTracking();
+        }
+    }
+
+    /**
+     * Runs an action as a batch. Writes inside the batch are applied immediately, but subscribers
+     * and dependents are notified once, when the outermost batch on the current thread ends.
+     * Batches can be nested.
+     */
+    public static void batch(Runnable action) {
+        Objects.requireNonNull(action, "Batch action cannot be null");
+
+        DependencyTracker tracker = DependencyTracker.getInstance();
+        tracker.startBatch();
+        try {
+            action.run();
+        } finally {
+            tracker.endBatch();
+        }
+    }
+
+    /**
+     * Runs a value-returning action as a batch.
+     *
+     * @return The value returned by the action.
+     * @see #batch(Runnable)
+     */
+    public static <T> T batch(Supplier<T> action) {
+        Objects.requireNonNull(action, "Batch action cannot be null");
+
+        DependencyTracker tracker = DependencyTracker.getInstance();
+        tracker.startBatch();
+        try {
+            return action.get();
+        } finally {
+            tracker.endBatch();
+        }
     }
 
     /**
@@ -1,11 +1,17 @@
 package jsignals.async;
 
 import jsignals.core.Disposable;
+import jsignals.core.Equality;
 import jsignals.core.ReadableRef;
 import jsignals.core.Ref;
+import jsignals.core.SignalNode;
+import jsignals.jfr.DebounceCollapseEvent;
+import jsignals.jfr.JfrEvents;
+import jsignals.jfr.ResourceFetchEvent;
 import jsignals.runtime.DependencyTracker;
-import jsignals.runtime.DependencyTracker.Dependent;
 import jsignals.runtime.JSignalsExecutor;
+import jsignals.runtime.JSignalsMetrics;
+import jsignals.runtime.JSignalsRuntime;
 import jsignals.util.JSignalsLogger;
 import org.slf4j.Logger;
 
@@ -17,13 +23,17 @@ import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
-public class ResourceRef<T> implements ReadableRef<ResourceState<T>>, Dependent {
+import static jsignals.util.JSignalsLogger.DEBUG;
 
-    private final DependencyTracker tracker = DependencyTracker.getInstance();
+public class ResourceRef<T> extends SignalNode implements ReadableRef<ResourceState<T>> {
+
+    private final DependencyTracker tracker = getTracker();
+
+    private final JSignalsMetrics metrics = tracker.getMetrics();
 
     private final AtomicReference<CompletableFuture<T>> currentFetch = new AtomicReference<>();
 
-    private final AtomicReference<Ref<ResourceState<T>>> state = new AtomicReference<>(new Ref<>(ResourceState.idle()));
+    private final AtomicReference<Ref<ResourceState<T>>> state;
 
     private final AtomicReference<T> cachedValue = new AtomicReference<>();
 
@@ -35,7 +45,13 @@ public class ResourceRef<T> implements ReadableRef<ResourceState<T>>, Dependent
 
     private final Executor executor;
 
-    private final JSignalsExecutor defaultExecutor = JSignalsExecutor.getInstance();
+    private final JSignalsExecutor defaultExecutor;
+
+    /**
+     * The worker of the partition the resource belongs to, which applies the results of fetches,
+     * or {@code null}.
+     */
+    private final Executor worker;
 
     private final Duration debounceDelay;
 
@@ -45,14 +61,38 @@ public class ResourceRef<T> implements ReadableRef<ResourceState<T>>, Dependent
 
     private final AtomicReference<CompletableFuture<T>> debouncedFetchCompletion = new AtomicReference<>();
 
-    private final Logger log = JSignalsLogger.getLogger(getName());
+    private static final Logger log = JSignalsLogger.getLogger(ResourceRef.class);
 
     public ResourceRef(Supplier<CompletableFuture<T>> fetcher, boolean autoFetch, Executor executor, Duration debounceDelay) {
+        this(DependencyTracker.getInstance(), JSignalsExecutor.getInstance(), null, new Ref<>(ResourceState.idle()),
+             fetcher, autoFetch, executor, debounceDelay);
+    }
+
+    /**
+     * Creates a resource in the graph of the given runtime. Debounced fetches are scheduled on the
+     * runtime's executor. If the runtime belongs to a partition, debounced fetches and the results
+     * of fetches run on its worker rather than on the given executor.
+     */
+    public ResourceRef(JSignalsRuntime runtime, Supplier<CompletableFuture<T>> fetcher, boolean autoFetch, Executor executor, Duration debounceDelay) {
+        this(runtime.getTracker(), runtime.getExecutor(), runtime.getWorker(), new Ref<>(runtime, ResourceState.idle(), Equality.objectEquals()),
+             fetcher, autoFetch, executor, debounceDelay);
+    }
+
+    private ResourceRef(DependencyTracker tracker, JSignalsExecutor defaultExecutor, Executor worker, Ref<ResourceState<T>> initialState,
+                        Supplier<CompletableFuture<T>> fetcher, boolean autoFetch, Executor executor, Duration debounceDelay) {
+        super(tracker);
+        this.defaultExecutor = defaultExecutor;
+        this.worker = worker;
+        this.state = new AtomicReference<>(initialState);
         this.fetcher = Objects.requireNonNull(fetcher, "Fetcher cannot be null");
         this.executor = Objects.requireNonNull(executor, "Executor cannot be null");
         this.debounceDelay = Objects.requireNonNull(debounceDelay, "Debounce delay cannot be null");
         this.isDebounceEnabled = !debounceDelay.isZero() && !debounceDelay.isNegative();
         this.isAutoFetch = autoFetch;
+        if (isDebounceEnabled) {
+            // Every change resets the debounce timer, even behind stale computed values
+            receiveEveryChange();
+        }
 
         if (autoFetch) {
             fetch();
@@ -106,7 +146,13 @@ public class ResourceRef<T> implements ReadableRef<ResourceState<T>>, Dependent
 
     @Override
     public void onDependencyChanged() {
-        log.debug("Dependency changed, refetching for {}", this);
+        if (DEBUG) {
+            log.debug("Dependency changed, refetching for {}", this);
+        }
+
+        // Accept the change right away, so that further changes while a debounced fetch is
+        // pending keep resetting the debounce timer
+        markClean();
 
         // When a dependency changes, refetch the data
         fetch();
@@ -124,10 +170,25 @@ public class ResourceRef<T> implements ReadableRef<ResourceState<T>>, Dependent
             return fetchNow();
         }
 
-        // Atomically get and cancel any previously scheduled debounce task
+        // A pending debounce task that has not started yet is postponed in place
+        ScheduledFuture<?> pendingTask = debounceTask.get();
+        boolean postponed = pendingTask != null
+                && defaultExecutor.postpone(pendingTask, debounceDelay.toMillis(), TimeUnit.MILLISECONDS);
+        if (postponed) {
+            if (JfrEvents.isRecording()) {
+                recordDebounceCollapse();
+            }
+            return debouncedFetchCompletion.updateAndGet(currentFuture ->
+                    (currentFuture == null || currentFuture.isDone()) ? new CompletableFuture<>() : currentFuture
+            );
+        }
+
+        // Otherwise, atomically get and cancel any previously scheduled debounce task
         ScheduledFuture<?> oldTask = debounceTask.getAndSet(null);
         if (oldTask != null) {
-            oldTask.cancel(false); // Don't interrupt if already running
+            if (oldTask.cancel(false) && JfrEvents.isRecording()) { // Don't interrupt if already running
+                recordDebounceCollapse();
+            }
         }
 
         // Ensure we have a single CompletableFuture to represent the eventual result of this debounced fetch
@@ -152,8 +213,10 @@ public class ResourceRef<T> implements ReadableRef<ResourceState<T>>, Dependent
             });
         };
 
-        // Create a new scheduled task with the debounce delay
-        ScheduledFuture<?> newScheduledTask = defaultExecutor.getScheduler().schedule(fetchTask, debounceDelay.toMillis(), TimeUnit.MILLISECONDS);
+        // Create a new scheduled task with the debounce delay. In a partition, the timer hands it
+        // over to the worker, as the fetcher may read the graph.
+        Runnable dueTask = worker != null ? () -> worker.execute(fetchTask) : fetchTask;
+        ScheduledFuture<?> newScheduledTask = defaultExecutor.schedule(dueTask, debounceDelay.toMillis(), TimeUnit.MILLISECONDS);
         debounceTask.set(newScheduledTask);
 
         return debouncedFetchCompletion.get();
@@ -166,7 +229,11 @@ public class ResourceRef<T> implements ReadableRef<ResourceState<T>>, Dependent
      * @return A CompletableFuture that completes with the fetched data or an error.
      */
     private CompletableFuture<T> fetchNow() {
-        log.debug("Starting fetch for {}", this);
+        if (DEBUG) {
+            log.debug("Starting fetch for {}", this);
+        }
+        metrics.recordResourceFetch();
+        ResourceFetchEvent fetchEvent = JfrEvents.isRecording() ? beginFetchEvent() : null;
 
         state.get().set(ResourceState.loading(cachedValue.get()));
 
@@ -180,6 +247,8 @@ public class ResourceRef<T> implements ReadableRef<ResourceState<T>>, Dependent
             newFetch = fetcher.get(); // Execute the fetcher to get the future. This part might access reactive dependencies.
         } catch (Exception e) {
             // Handle immediate exceptions during fetcher execution.
+            metrics.recordResourceError();
+            commitFetchEvent(fetchEvent, ResourceFetchEvent.ERROR);
             state.get().set(ResourceState.error(cachedValue.get(), e));
             return CompletableFuture.failedFuture(e);
         } finally {
@@ -196,32 +265,89 @@ public class ResourceRef<T> implements ReadableRef<ResourceState<T>>, Dependent
 
         // If there was a previous fetch running, cancel it.
         if (oldFetch != null && !oldFetch.isDone()) {
-            log.debug("Cancelling previous fetch for {}", this);
+            if (DEBUG) {
+                log.debug("Cancelling previous fetch for {}", this);
+            }
             oldFetch.cancel(true);
         }
 
-        // Handle the result
-        return newFetch
-                .thenApplyAsync(data -> {
-                    cachedValue.set(data);
-                    state.get().set(ResourceState.success(cachedValue.get()));
-                    log.debug("Fetch succeeded for {}", this);
-                    return data;
-                }, executor)
-                .exceptionally(error -> {
-                    Throwable cause = error.getCause();
-
-                    // Handle cancellation
-                    if (cause instanceof CancellationException) {
-                        log.debug("Fetch cancelled for {}", this);
-                        state.get().set(ResourceState.cancelled(cachedValue.get(), cause));
-                        return null;
-                    }
+        // The fetch counts as work in flight of the runtime until its result was applied, so a
+        // graceful shutdown waits for it, and its continuation still runs while shutting down
+        JSignalsExecutor.Continuation continuation = defaultExecutor.trackContinuation(newFetch);
+        Executor applyExecutor = executor == defaultExecutor ? continuation : executor;
+
+        // Handle the result. In a partition, both outcomes are applied on the worker; otherwise
+        // failures are applied right away, on the thread that completes the fetch.
+        CompletableFuture<T> result;
+        if (worker != null) {
+            result = newFetch
+                    .thenApplyAsync(data -> onSuccess(data, fetchEvent), worker)
+                    .exceptionallyAsync(error -> onFailure(error, fetchEvent), worker);
+        } else {
+            result = newFetch
+                    .thenApplyAsync(data -> onSuccess(data, fetchEvent), applyExecutor)
+                    .exceptionally(error -> onFailure(error, fetchEvent));
+        }
+        result.whenComplete((data, error) -> continuation.done());
+        return result;
+    }
+
+    private T onSuccess(T data, ResourceFetchEvent fetchEvent) {
+        cachedValue.set(data);
+        commitFetchEvent(fetchEvent, ResourceFetchEvent.SUCCESS);
+        state.get().set(ResourceState.success(cachedValue.get()));
+        if (DEBUG) {
+            log.debug("Fetch succeeded for {}", this);
+        }
+        return data;
+    }
+
+    private T onFailure(Throwable error, ResourceFetchEvent fetchEvent) {
+        Throwable cause = error.getCause();
+
+        // Handle cancellation
+        if (cause instanceof CancellationException) {
+            if (DEBUG) {
+                log.debug("Fetch cancelled for {}", this);
+            }
+            metrics.recordResourceCancellation();
+            commitFetchEvent(fetchEvent, ResourceFetchEvent.CANCELLED);
+            state.get().set(ResourceState.cancelled(cachedValue.get(), cause));
+            return null;
+        }
+
+        if (DEBUG) {
+            log.debug("Fetch failed for {} with {}", this, error.toString());
+        }
+        metrics.recordResourceError();
+        commitFetchEvent(fetchEvent, ResourceFetchEvent.ERROR);
+        state.get().set(ResourceState.error(cachedValue.get(), cause));
+        return null;
+    }
+
+    private ResourceFetchEvent beginFetchEvent() {
+        ResourceFetchEvent event = new ResourceFetchEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.resource = getName();
+        event.begin();
+        return event;
+    }
 
-                    log.debug("Fetch failed for {} with {}", this, error.toString());
-                    state.get().set(ResourceState.error(cachedValue.get(), cause));
-                    return null;
-                });
+    private static void commitFetchEvent(ResourceFetchEvent event, String outcome) {
+        if (event != null) {
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    private void recordDebounceCollapse() {
+        DebounceCollapseEvent event = new DebounceCollapseEvent();
+        if (event.isEnabled()) {
+            event.resource = getName();
+            event.commit();
+        }
     }
 
     /**
@@ -231,7 +357,9 @@ public class ResourceRef<T> implements ReadableRef<ResourceState<T>>, Dependent
         var fetchToCancel = currentFetch.getAndSet(null);
 
         if (fetchToCancel != null && !fetchToCancel.isDone()) {
-            log.debug("Cancelling current fetch for {}", this);
+            if (DEBUG) {
+                log.debug("Cancelling current fetch for {}", this);
+            }
             fetchToCancel.cancel(true);
         }
 
@@ -0,0 +1,90 @@
+package jsignals.core;
+
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsRuntime;
+
+/**
+ * A reactive reference holding a {@code boolean}, the primitive counterpart of {@code Ref<Boolean>}.
+ * Reads, writes and change notifications never box the value.
+ * <p>
+ * Takes part in the dependency graph like any other node: a {@link ComputedRef} or an effect that
+ * calls {@link #get()} depends on this reference.
+ */
+public class BooleanRef extends PrimitiveRef<BooleanChangeListener> {
+
+    /**
+     * Creates a new BooleanRef with an initial value of {@code false}.
+     */
+    public BooleanRef() {
+        this(false);
+    }
+
+    /**
+     * Creates a new BooleanRef with an initial value.
+     */
+    public BooleanRef(boolean initialValue) {
+        this(DependencyTracker.getInstance(), initialValue);
+    }
+
+    /**
+     * Creates a new BooleanRef in the graph of the given runtime.
+     */
+    public BooleanRef(JSignalsRuntime runtime, boolean initialValue) {
+        this(runtime.getTracker(), initialValue);
+    }
+
+    private BooleanRef(DependencyTracker tracker, boolean initialValue) {
+        super(tracker, initialValue ? 1L : 0L);
+    }
+
+    /**
+     * Gets the current value and tracks this access for reactivity.
+     */
+    public boolean get() {
+        return getBits() != 0;
+    }
+
+    /**
+     * Gets the current value without tracking (peek).
+     */
+    public boolean getValue() {
+        return peekBits() != 0;
+    }
+
+    /**
+     * Sets a new value and triggers updates to dependents.
+     */
+    public void set(boolean newValue) {
+        setBits(newValue ? 1L : 0L);
+    }
+
+    /**
+     * Flips the value and triggers updates.
+     */
+    public void toggle() {
+        updateBits(bits -> bits ^ 1L);
+    }
+
+    /**
+     * Subscribes to value changes with access to old and new values.
+     */
+    public Disposable watch(BooleanChangeListener listener) {
+        return subscribe(listener);
+    }
+
+    @Override
+    void onChange(BooleanChangeListener listener, long oldBits, long newBits) {
+        listener.onChange(oldBits != 0, newBits != 0);
+    }
+
+    @Override
+    public String getName() {
+        return "BooleanRef@" + Integer.toHexString(getId());
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "{value=" + getValue() + "}";
+    }
+
+}
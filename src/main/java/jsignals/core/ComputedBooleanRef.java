@@ -0,0 +1,88 @@
+package jsignals.core;
+
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsRuntime;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A computed {@code boolean}, the primitive counterpart of {@code ComputedRef<Boolean>}.
+ * Evaluation, caching and change notifications never box the value.
+ * <p>
+ * Behaves like a {@link ComputedRef}: it is lazy unless it has subscribers, only re-runs when one
+ * of the values it read actually changed, and can be read by other computations.
+ */
+public class ComputedBooleanRef extends ComputedPrimitiveRef<BooleanChangeListener> {
+
+    private final BooleanSupplier computation;
+
+    /**
+     * Creates a new lazy computed value with the given computation.
+     */
+    public ComputedBooleanRef(BooleanSupplier computation) {
+        this(computation, true);
+    }
+
+    public ComputedBooleanRef(BooleanSupplier computation, boolean lazy) {
+        this(DependencyTracker.getInstance(), SHARED_RUNTIME, computation, lazy);
+    }
+
+    /**
+     * Creates a new computed value in the graph of the given runtime.
+     * Eager recomputations run on the runtime's recompute scheduler.
+     */
+    public ComputedBooleanRef(JSignalsRuntime runtime, BooleanSupplier computation, boolean lazy) {
+        this(runtime.getTracker(), runtime.getRecomputeScheduler(), computation, lazy);
+    }
+
+    private ComputedBooleanRef(DependencyTracker tracker, Executor executor, BooleanSupplier computation, boolean lazy) {
+        super(tracker, executor, lazy);
+        this.computation = Objects.requireNonNull(computation, "Computation cannot be null");
+
+        recompute(); // Initial computation to set the cached value
+    }
+
+    /**
+     * Gets the current value and tracks this access for reactivity.
+     */
+    public boolean get() {
+        return getBits() != 0;
+    }
+
+    /**
+     * Gets the current value without tracking (peek).
+     */
+    public boolean getValue() {
+        return peekBits() != 0;
+    }
+
+    /**
+     * Subscribes to value changes with access to old and new values.
+     */
+    public Disposable watch(BooleanChangeListener listener) {
+        return subscribe(listener);
+    }
+
+    @Override
+    long computeBits() {
+        return computation.getAsBoolean() ? 1L : 0L;
+    }
+
+    @Override
+    void onChange(BooleanChangeListener listener, long oldBits, long newBits) {
+        listener.onChange(oldBits != 0, newBits != 0);
+    }
+
+    @Override
+    public String getName() {
+        return "ComputedBooleanRef@" + Integer.toHexString(getId());
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "{cachedValue=" + (cachedBits() != 0) + ", isDirty=" + isDirty() + "}";
+    }
+
+}
@@ -0,0 +1,100 @@
+package jsignals.core;
+
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsRuntime;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A computed {@code double}, the primitive counterpart of {@code ComputedRef<Double>}.
+ * Evaluation, caching and change notifications never box the value.
+ * <p>
+ * Behaves like a {@link ComputedRef}: it is lazy unless it has subscribers, only re-runs when one
+ * of the values it read actually changed, and can be read by other computations.
+ */
+public class ComputedDoubleRef extends ComputedPrimitiveRef<DoubleChangeListener> {
+
+    private final DoubleSupplier computation;
+
+    /**
+     * Creates a new lazy computed value with the given computation.
+     */
+    public ComputedDoubleRef(DoubleSupplier computation) {
+        this(computation, true);
+    }
+
+    public ComputedDoubleRef(DoubleSupplier computation, boolean lazy) {
+        this(DependencyTracker.getInstance(), SHARED_RUNTIME, computation, lazy);
+    }
+
+    /**
+     * Creates a new computed value in the graph of the given runtime.
+     * Eager recomputations run on the runtime's recompute scheduler.
+     */
+    public ComputedDoubleRef(JSignalsRuntime runtime, DoubleSupplier computation, boolean lazy) {
+        this(runtime.getTracker(), runtime.getRecomputeScheduler(), computation, lazy);
+    }
+
+    private ComputedDoubleRef(DependencyTracker tracker, Executor executor, DoubleSupplier computation, boolean lazy) {
+        super(tracker, executor, lazy);
+        this.computation = Objects.requireNonNull(computation, "Computation cannot be null");
+
+        recompute(); // Initial computation to set the cached value
+    }
+
+    /**
+     * Gets the current value and tracks this access for reactivity.
+     */
+    public double get() {
+        return Double.longBitsToDouble(getBits());
+    }
+
+    /**
+     * Gets the current value without tracking (peek).
+     */
+    public double getValue() {
+        return Double.longBitsToDouble(peekBits());
+    }
+
+    /**
+     * Subscribes to value changes.
+     *
+     * @param listener Called with the new value when the value changes
+     * @return A Disposable to unsubscribe
+     */
+    public Disposable watch(DoubleConsumer listener) {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        return subscribe((_, newValue) -> listener.accept(newValue));
+    }
+
+    /**
+     * Subscribes to value changes with access to old and new values.
+     */
+    public Disposable watch(DoubleChangeListener listener) {
+        return subscribe(listener);
+    }
+
+    @Override
+    long computeBits() {
+        return Double.doubleToLongBits(computation.getAsDouble());
+    }
+
+    @Override
+    void onChange(DoubleChangeListener listener, long oldBits, long newBits) {
+        listener.onChange(Double.longBitsToDouble(oldBits), Double.longBitsToDouble(newBits));
+    }
+
+    @Override
+    public String getName() {
+        return "ComputedDoubleRef@" + Integer.toHexString(getId());
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "{cachedValue=" + Double.longBitsToDouble(cachedBits()) + ", isDirty=" + isDirty() + "}";
+    }
+
+}
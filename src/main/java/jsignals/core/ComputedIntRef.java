@@ -0,0 +1,100 @@
+package jsignals.core;
+
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsRuntime;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+
+/**
+ * A computed {@code int}, the primitive counterpart of {@code ComputedRef<Integer>}.
+ * Evaluation, caching and change notifications never box the value.
+ * <p>
+ * Behaves like a {@link ComputedRef}: it is lazy unless it has subscribers, only re-runs when one
+ * of the values it read actually changed, and can be read by other computations.
+ */
+public class ComputedIntRef extends ComputedPrimitiveRef<IntChangeListener> {
+
+    private final IntSupplier computation;
+
+    /**
+     * Creates a new lazy computed value with the given computation.
+     */
+    public ComputedIntRef(IntSupplier computation) {
+        this(computation, true);
+    }
+
+    public ComputedIntRef(IntSupplier computation, boolean lazy) {
+        this(DependencyTracker.getInstance(), SHARED_RUNTIME, computation, lazy);
+    }
+
+    /**
+     * Creates a new computed value in the graph of the given runtime.
+     * Eager recomputations run on the runtime's recompute scheduler.
+     */
+    public ComputedIntRef(JSignalsRuntime runtime, IntSupplier computation, boolean lazy) {
+        this(runtime.getTracker(), runtime.getRecomputeScheduler(), computation, lazy);
+    }
+
+    private ComputedIntRef(DependencyTracker tracker, Executor executor, IntSupplier computation, boolean lazy) {
+        super(tracker, executor, lazy);
+        this.computation = Objects.requireNonNull(computation, "Computation cannot be null");
+
+        recompute(); // Initial computation to set the cached value
+    }
+
+    /**
+     * Gets the current value and tracks this access for reactivity.
+     */
+    public int get() {
+        return (int) getBits();
+    }
+
+    /**
+     * Gets the current value without tracking (peek).
+     */
+    public int getValue() {
+        return (int) peekBits();
+    }
+
+    /**
+     * Subscribes to value changes.
+     *
+     * @param listener Called with the new value when the value changes
+     * @return A Disposable to unsubscribe
+     */
+    public Disposable watch(IntConsumer listener) {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        return subscribe((_, newValue) -> listener.accept(newValue));
+    }
+
+    /**
+     * Subscribes to value changes with access to old and new values.
+     */
+    public Disposable watch(IntChangeListener listener) {
+        return subscribe(listener);
+    }
+
+    @Override
+    long computeBits() {
+        return computation.getAsInt();
+    }
+
+    @Override
+    void onChange(IntChangeListener listener, long oldBits, long newBits) {
+        listener.onChange((int) oldBits, (int) newBits);
+    }
+
+    @Override
+    public String getName() {
+        return "ComputedIntRef@" + Integer.toHexString(getId());
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "{cachedValue=" + (int) cachedBits() + ", isDirty=" + isDirty() + "}";
+    }
+
+}
@@ -0,0 +1,100 @@
+package jsignals.core;
+
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsRuntime;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A computed {@code long}, the primitive counterpart of {@code ComputedRef<Long>}.
+ * Evaluation, caching and change notifications never box the value.
+ * <p>
+ * Behaves like a {@link ComputedRef}: it is lazy unless it has subscribers, only re-runs when one
+ * of the values it read actually changed, and can be read by other computations.
+ */
+public class ComputedLongRef extends ComputedPrimitiveRef<LongChangeListener> {
+
+    private final LongSupplier computation;
+
+    /**
+     * Creates a new lazy computed value with the given computation.
+     */
+    public ComputedLongRef(LongSupplier computation) {
+        this(computation, true);
+    }
+
+    public ComputedLongRef(LongSupplier computation, boolean lazy) {
+        this(DependencyTracker.getInstance(), SHARED_RUNTIME, computation, lazy);
+    }
+
+    /**
+     * Creates a new computed value in the graph of the given runtime.
+     * Eager recomputations run on the runtime's recompute scheduler.
+     */
+    public ComputedLongRef(JSignalsRuntime runtime, LongSupplier computation, boolean lazy) {
+        this(runtime.getTracker(), runtime.getRecomputeScheduler(), computation, lazy);
+    }
+
+    private ComputedLongRef(DependencyTracker tracker, Executor executor, LongSupplier computation, boolean lazy) {
+        super(tracker, executor, lazy);
+        this.computation = Objects.requireNonNull(computation, "Computation cannot be null");
+
+        recompute(); // Initial computation to set the cached value
+    }
+
+    /**
+     * Gets the current value and tracks this access for reactivity.
+     */
+    public long get() {
+        return getBits();
+    }
+
+    /**
+     * Gets the current value without tracking (peek).
+     */
+    public long getValue() {
+        return peekBits();
+    }
+
+    /**
+     * Subscribes to value changes.
+     *
+     * @param listener Called with the new value when the value changes
+     * @return A Disposable to unsubscribe
+     */
+    public Disposable watch(LongConsumer listener) {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        return subscribe((_, newValue) -> listener.accept(newValue));
+    }
+
+    /**
+     * Subscribes to value changes with access to old and new values.
+     */
+    public Disposable watch(LongChangeListener listener) {
+        return subscribe(listener);
+    }
+
+    @Override
+    long computeBits() {
+        return computation.getAsLong();
+    }
+
+    @Override
+    void onChange(LongChangeListener listener, long oldBits, long newBits) {
+        listener.onChange(oldBits, newBits);
+    }
+
+    @Override
+    public String getName() {
+        return "ComputedLongRef@" + Integer.toHexString(getId());
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "{cachedValue=" + cachedBits() + ", isDirty=" + isDirty() + "}";
+    }
+
+}
@@ -0,0 +1,455 @@
+package jsignals.core;
+
+import jsignals.jfr.JfrEvents;
+import jsignals.jfr.RecomputeEvent;
+import jsignals.runtime.ComputationProfiler;
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsMetrics;
+import jsignals.util.JSignalsLogger;
+import org.slf4j.Logger;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static jsignals.JSignals.scheduleRecompute;
+import static jsignals.util.JSignalsLogger.DEBUG;
+import static jsignals.util.JSignalsLogger.TRACE;
+
+/**
+ * The evaluation protocol shared by all computed values, independent of the type of the value.
+ * <p>
+ * Evaluation does not take locks. The first thread to find the value stale claims the evaluation
+ * with a CAS, re-runs the computation with tracking and publishes the result. Threads that read
+ * the value while it is being evaluated do not wait: they compute it speculatively, without
+ * tracking, and use their result if no write raced with it. If writes keep racing with them, they
+ * wait for the evaluating thread instead, so a torn result is never returned.
+ * <p>
+ * Subclasses hold the value and run the computation, bracketed by the helpers of this class.
+ * {@link ComputedRef} does so for objects, and {@link ComputedPrimitiveRef} once for all the
+ * primitive types:
+ * <pre>{@code
+ * if (!claimEvaluation()) -> speculate: startSpeculation() .. compute .. finishSpeculation(clock),
+ *                           or awaitEvaluation() and start over if writes kept racing
+ * try {
+ *     if (!needsUpdate()) -> cached value
+ *     startEvaluation() .. compute .. finishEvaluation(completed)
+ *     publish the value, incrementVersion() if it changed
+ * } finally {
+ *     releaseEvaluation()
+ * }
+ * notify subscribers
+ * }</pre>
+ */
+abstract class ComputedNode extends SignalNode implements Disposable {
+
+    /**
+     * Runs eager recomputations of values in the default graph on the shared runtime.
+     */
+    static final Executor SHARED_RUNTIME = task -> scheduleRecompute(task);
+
+    /**
+     * Returns the scheduler running the eager recomputations of the given graph.
+     */
+    static Executor recomputeSchedulerOf(DependencyTracker tracker) {
+        Executor scheduler = tracker.getRecomputeScheduler();
+        return scheduler != null ? scheduler : SHARED_RUNTIME;
+    }
+
+    /**
+     * How many times a speculative computation is retried when writes keep racing with it, before
+     * the reader waits for the evaluating thread.
+     */
+    static final int MAX_SPECULATIVE_ATTEMPTS = 4;
+
+    /**
+     * Spins before a reader waiting for the evaluating thread starts parking.
+     */
+    private static final int MAX_SPINS = 100;
+
+    /**
+     * How long a reader waiting for the evaluating thread parks between checks.
+     */
+    private static final long PARK_NANOS = 10_000;
+
+    /**
+     * The speculative runs in progress on the current thread, innermost last. Used to detect
+     * cycles, and to restore the owner when a run ends. Only touched on the speculative path.
+     */
+    private static final ThreadLocal<List<Speculation>> SPECULATIONS = ThreadLocal.withInitial(ArrayList::new);
+
+    /**
+     * A speculative run in progress.
+     *
+     * @param node          The value being computed.
+     * @param owner         Owns what the run creates, which is disposed when it ends.
+     * @param previousOwner The owner that was current before the run started.
+     */
+    private record Speculation(ComputedNode node, Owner owner, Owner previousOwner) { }
+
+    private static final Logger log = JSignalsLogger.getLogger(ComputedNode.class);
+
+    private static final VarHandle SCHEDULED;
+
+    static {
+        try {
+            SCHEDULED = MethodHandles.lookup().findVarHandle(ComputedNode.class, "scheduled", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The thread currently evaluating this value with tracking, or {@code null}.
+     */
+    private final AtomicReference<Thread> evaluator = new AtomicReference<>();
+
+    private final Executor executor;
+
+    private final boolean lazy;
+
+    /**
+     * Whether a recomputation of this value is queued and has not started yet. Changes that
+     * arrive meanwhile are picked up by that recomputation, so they do not queue another one.
+     */
+    private volatile boolean scheduled;
+
+    /**
+     * Tracked runs of the computation. Only written by the evaluating thread.
+     */
+    private volatile long computeCount;
+
+    private volatile long lastComputeNanos;
+
+    /**
+     * When the current tracked run started, or zero if it is not being measured.
+     * Only accessed by the evaluating thread.
+     */
+    private long computeStart;
+
+    /**
+     * The profiler sample of the current tracked run, or {@code null} if it is not sampled.
+     * Only accessed by the evaluating thread.
+     */
+    private ComputationProfiler.Sample profileSample;
+
+    /**
+     * The flight recorder event of the current tracked run, or {@code null} if it is not
+     * recorded, and the version of this value when the run started. Only accessed by the
+     * evaluating thread.
+     */
+    private RecomputeEvent recomputeEvent;
+
+    private long recomputeVersion;
+
+    /**
+     * Owns what the computation creates, which is disposed before it runs again.
+     */
+    private final Owner owner = new Owner();
+
+    /**
+     * The owner that was current before the evaluation started. Only accessed by the evaluating
+     * thread.
+     */
+    private Owner previousOwner;
+
+    private volatile boolean disposed;
+
+    /**
+     * The owner of the scope this value was created in, or {@code null}.
+     */
+    private final Owner parentOwner;
+
+    /**
+     * Whether the sources of this value were declared up front, so its runs are not tracked.
+     */
+    private final boolean staticSources;
+
+    ComputedNode(DependencyTracker tracker, Executor executor, boolean lazy) {
+        this(tracker, executor, lazy, null);
+    }
+
+    /**
+     * @param dependencies The sources of this value, declared up front, or {@code null} to track
+     *                     them while the computation runs.
+     */
+    ComputedNode(DependencyTracker tracker, Executor executor, boolean lazy, Dependencies dependencies) {
+        super(tracker);
+        this.executor = executor;
+        this.lazy = lazy;
+        this.staticSources = dependencies != null;
+        if (dependencies != null) {
+            dependencies.wire(this);
+        }
+        this.parentOwner = Owner.adopt(this);
+    }
+
+    /**
+     * Checks whether direct subscribers are watching this value, which makes it eager.
+     */
+    abstract boolean hasSubscriptions();
+
+    public boolean isDirty() {
+        return !isClean();
+    }
+
+    public boolean isComputing() {
+        return evaluator.get() != null;
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Checks whether the sources of this value were declared up front, instead of tracked.
+     */
+    public boolean hasStaticSources() {
+        return staticSources;
+    }
+
+    /**
+     * Marks this value stale even though none of its dependencies changed.
+     */
+    public void invalidate() {
+        if (DEBUG) {
+            log.debug("Invalidating {}...", getName());
+        }
+        getTracker().invalidate(this);
+    }
+
+    @Override
+    public long getComputeCount() {
+        return computeCount;
+    }
+
+    @Override
+    public long getLastComputeNanos() {
+        return lastComputeNanos;
+    }
+
+    @Override
+    protected boolean isEager() {
+        return !lazy || hasSubscriptions();
+    }
+
+    /**
+     * Stops this value from recomputing when its dependencies change, and disposes what its
+     * computation created. The value can still be read, which recomputes it on demand.
+     */
+    @Override
+    public void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        owner.dispose();
+        if (parentOwner != null) {
+            parentOwner.disown(this);
+        }
+        // Clean up our registrations, so the dependencies no longer reference this value
+        clearSources();
+    }
+
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    @Override
+    public void onDependencyChanged() {
+        // The tracker has already marked this value and everything downstream of it as stale.
+        // We only get here if the value is eager, in which case it recomputes proactively.
+        if (!disposed && isEager()) {
+            if (DEBUG) {
+                log.debug("Dependency of {} changed, scheduling recomputation...", getName());
+            }
+
+            // Queue a task to refresh the value, which will safely trigger the recomputation
+            // on a background thread without blocking the current one.
+            if (SCHEDULED.compareAndSet(this, false, true)) {
+                executor.execute(this::runScheduled);
+            } else if (TRACE) {
+                log.trace("Recomputation of {} is already scheduled.", getName());
+            }
+        }
+    }
+
+    private void runScheduled() {
+        // Cleared first, so a change made while this recomputation runs schedules another one
+        scheduled = false;
+        refresh();
+    }
+
+    /**
+     * Checks whether the published value can be returned as is: this value is clean, and no
+     * thread is evaluating it. Callers return the published value when it is, which counts as a
+     * cache hit.
+     */
+    final boolean isFresh() {
+        if (isClean() && evaluator.get() == null) {
+            getTracker().getMetrics().recordCacheHit();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Claims the evaluation of this value for the current thread.
+     *
+     * @return {@code true} if the current thread must evaluate, {@code false} if another thread is
+     * already evaluating and the current one should speculate.
+     * @throws IllegalStateException If the current thread is already evaluating this value.
+     */
+    final boolean claimEvaluation() {
+        Thread current = Thread.currentThread();
+        if (evaluator.compareAndSet(null, current)) {
+            return true;
+        }
+        if (evaluator.get() == current) {
+            log.error("Circular dependency detected in {}. Computation is already in progress.", getName());
+            throw new IllegalStateException("Circular dependency detected in " + getClass().getSimpleName() + ".");
+        }
+        return false;
+    }
+
+    /**
+     * Releases the evaluation. Must be called after the new value has been published, as lock-free
+     * readers trust the published value as soon as this value is clean and not being evaluated.
+     */
+    final void releaseEvaluation() {
+        RecomputeEvent event = recomputeEvent;
+        if (event != null) {
+            recomputeEvent = null;
+            event.changed = getVersion() != recomputeVersion;
+            event.commit();
+        }
+        evaluator.set(null);
+    }
+
+    /**
+     * Starts a tracked run of the computation, by the thread that claimed the evaluation.
+     */
+    final void startEvaluation() {
+        DependencyTracker tracker = getTracker();
+        JSignalsMetrics metrics = tracker.getMetrics();
+        metrics.recordRecompute();
+        computeStart = metrics.isEnabled() ? System.nanoTime() : 0L;
+        profileSample = tracker.getProfiler().begin();
+        if (JfrEvents.isRecording()) {
+            beginRecomputeEvent();
+        }
+        owner.disposeOwned();
+        previousOwner = Owner.enter(owner);
+        if (staticSources) {
+            // The edges are wired once, so reads do not need to be tracked
+            beginStaticRun();
+            tracker.startUntracked();
+        } else {
+            tracker.startTracking(this);
+        }
+    }
+
+    /**
+     * Finishes a tracked run of the computation.
+     *
+     * @param completed Whether the computation returned normally. If it threw, the value is left
+     *                  stale, so the next read tries again.
+     */
+    final void finishEvaluation(boolean completed) {
+        DependencyTracker tracker = getTracker();
+        if (computeStart != 0L) {
+            lastComputeNanos = System.nanoTime() - computeStart;
+        }
+        computeCount++;
+        tracker.getProfiler().end(this, profileSample);
+        profileSample = null;
+        if (recomputeEvent != null) {
+            recomputeEvent.end();
+        }
+        if (!completed) {
+            markDirty();
+        }
+        Owner.exit(previousOwner);
+        previousOwner = null;
+        tracker.stopTracking();
+        if (staticSources) {
+            endStaticRun();
+        }
+    }
+
+    private void beginRecomputeEvent() {
+        RecomputeEvent event = new RecomputeEvent();
+        if (event.isEnabled()) {
+            event.node = getName();
+            recomputeVersion = getVersion();
+            event.begin();
+            recomputeEvent = event;
+        }
+    }
+
+    /**
+     * Starts an untracked, speculative run of the computation. Speculative runs are not counted as
+     * recomputes, nor profiled. What they create is owned by a throwaway owner, and disposed when
+     * they end.
+     *
+     * @return The write clock of the graph, to pass to {@link #finishSpeculation(long)}.
+     * @throws IllegalStateException If the current thread is already computing this value
+     *                               speculatively, which means the values depend on each other.
+     */
+    final long startSpeculation() {
+        if (TRACE) {
+            log.trace("{} is being evaluated by another thread, computing speculatively.", getName());
+        }
+        List<Speculation> speculations = SPECULATIONS.get();
+        for (Speculation speculation : speculations) {
+            if (speculation.node() == this) {
+                log.error("Circular dependency detected in {}. Speculative computation is already in progress.", getName());
+                throw new IllegalStateException("Circular dependency detected in " + getClass().getSimpleName() + ".");
+            }
+        }
+        Owner speculationOwner = new Owner();
+        speculations.add(new Speculation(this, speculationOwner, Owner.enter(speculationOwner)));
+
+        DependencyTracker tracker = getTracker();
+        long clock = tracker.getWriteClock();
+        tracker.startUntracked();
+        return clock;
+    }
+
+    /**
+     * Finishes a speculative run of the computation.
+     *
+     * @param clock The write clock returned by {@link #startSpeculation()}.
+     * @return {@code true} if no write raced with the run, so its result is consistent.
+     */
+    final boolean finishSpeculation(long clock) {
+        DependencyTracker tracker = getTracker();
+        tracker.stopTracking();
+
+        Speculation speculation = SPECULATIONS.get().removeLast();
+        Owner.exit(speculation.previousOwner());
+        speculation.owner().dispose();
+
+        return tracker.getWriteClock() == clock;
+    }
+
+    /**
+     * Waits until no thread is evaluating this value. Readers call it when writes kept racing
+     * with their speculative runs, and then use the published value or evaluate again.
+     */
+    final void awaitEvaluation() {
+        int spins = 0;
+        while (evaluator.get() != null) {
+            if (spins++ < MAX_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package jsignals.core;
+
+import jsignals.runtime.DependencyTracker;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * The evaluation shared by the computed values of a primitive type.
+ * <p>
+ * Follows the protocol of {@link ComputedNode}, with the published value kept as the bits of a
+ * {@code long}. Subclasses run their computation and encode its result so that two values are
+ * equal exactly when their bits are, which is how changes are detected without boxing. They only
+ * add typed accessors, and pass the decoded values to their typed listeners.
+ *
+ * @param <L> The type of the change listeners.
+ */
+abstract class ComputedPrimitiveRef<L> extends ComputedNode implements BaseRef {
+
+    private final DependentNotifier dependentNotifier = new DependentNotifier(this);
+
+    private final SubscriptionNotifier<L> subscriptions = new SubscriptionNotifier<>();
+
+    /**
+     * The bits of the published value. Written by the evaluating thread before it releases the
+     * evaluation.
+     */
+    private volatile long cachedBits;
+
+    ComputedPrimitiveRef(DependencyTracker tracker, Executor executor, boolean lazy) {
+        super(tracker, executor, lazy);
+    }
+
+    @Override
+    public abstract String getName();
+
+    /**
+     * Runs the computation, and encodes its result.
+     */
+    abstract long computeBits();
+
+    /**
+     * Calls a listener with the values decoded from the given bits.
+     */
+    abstract void onChange(L listener, long oldBits, long newBits);
+
+    /**
+     * Gets the bits of the current value and tracks this access for reactivity.
+     */
+    final long getBits() {
+        dependentNotifier.trackAccess();
+        return peekBits();
+    }
+
+    /**
+     * Gets the bits of the current value without tracking.
+     */
+    final long peekBits() {
+        if (isFresh()) {
+            return cachedBits;
+        }
+        return recompute();
+    }
+
+    /**
+     * Returns the bits of the published value, which may be stale.
+     */
+    final long cachedBits() {
+        return cachedBits;
+    }
+
+    /**
+     * Subscribes to value changes with access to old and new values.
+     */
+    final Disposable subscribe(L listener) {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        return subscriptions.add(listener);
+    }
+
+    @Override
+    boolean hasSubscriptions() {
+        return subscriptions.hasSubscriptions();
+    }
+
+    @Override
+    protected void refresh() {
+        peekBits();
+    }
+
+    /**
+     * Evaluates the value, or speculates while another thread evaluates it. Subclasses call it once
+     * their computation is set, to compute the initial value.
+     */
+    final long recompute() {
+        if (!claimEvaluation()) {
+            return speculate();
+        }
+
+        long oldBits;
+        long newBits;
+        boolean changed;
+
+        try {
+            if (!needsUpdate()) {
+                return cachedBits;
+            }
+
+            boolean completed = false;
+            startEvaluation();
+            try {
+                newBits = computeBits();
+                completed = true;
+            } finally {
+                finishEvaluation(completed);
+            }
+
+            oldBits = cachedBits;
+            cachedBits = newBits;
+
+            changed = oldBits != newBits;
+            if (changed) {
+                incrementVersion();
+            }
+        } finally {
+            releaseEvaluation();
+        }
+
+        // Dependents were marked stale together with this value, only subscribers are notified
+        if (changed) {
+            subscriptions.notify(listener -> onChange(listener, oldBits, newBits));
+        }
+        return newBits;
+    }
+
+    /**
+     * Computes the value on the current thread while another thread evaluates it.
+     *
+     * @see ComputedRef
+     */
+    private long speculate() {
+        long result;
+        boolean consistent;
+        int attempts = 0;
+        do {
+            if (isFresh()) {
+                return cachedBits;
+            }
+
+            long clock = startSpeculation();
+            try {
+                result = computeBits();
+            } finally {
+                consistent = finishSpeculation(clock);
+            }
+        } while (!consistent && ++attempts < MAX_SPECULATIVE_ATTEMPTS);
+
+        if (consistent) {
+            return result;
+        }
+        // Writes kept racing with every attempt, so the result may be torn. Wait for the
+        // evaluating thread instead, and use its value or evaluate again.
+        awaitEvaluation();
+        return recompute();
+    }
+
+}
@@ -1,45 +1,42 @@
 package jsignals.core;
 
 import jsignals.runtime.DependencyTracker;
-import jsignals.runtime.DependencyTracker.Dependent;
+import jsignals.runtime.JSignalsRuntime;
 import jsignals.util.JSignalsLogger;
 import org.slf4j.Logger;
 
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
-import static jsignals.JSignals.submitTask;
+import static jsignals.util.JSignalsLogger.DEBUG;
+import static jsignals.util.JSignalsLogger.TRACE;
 
 /**
  * A computed reactive value that automatically updates when its dependencies change.
  * Thread-safe and lazily evaluated.
+ * <p>
+ * When a dependency changes, the computed value is only marked stale. It re-runs the next time it
+ * is read, and only if one of the values it read actually changed since its last run.
+ * <p>
+ * Evaluation does not take locks; see {@link ComputedNode} for how concurrent readers are handled.
  */
-public class ComputedRef<T> implements ReadableRef<T>, Dependent {
+public class ComputedRef<T> extends ComputedNode implements ReadableRef<T> {
 
     private final Supplier<T> computation;
 
-    private final DependencyTracker tracker = DependencyTracker.getInstance();
-
     private final DependentNotifier dependentNotifier = new DependentNotifier(this);
 
     private final SubscriptionNotifier<BiConsumer<T, T>> subscriptions = new SubscriptionNotifier<>();
 
-    private final ReentrantReadWriteLock computationLock = new ReentrantReadWriteLock();
-
     private final AtomicReference<T> cachedValue = new AtomicReference<>();
 
-    private final AtomicBoolean dirty = new AtomicBoolean(true);
-
-    private final AtomicBoolean computing = new AtomicBoolean(false);
-
-    private final boolean lazy;
+    private final Equality<? super T> equality;
 
-    private final Logger log = JSignalsLogger.getLogger(getName());
+    private static final Logger log = JSignalsLogger.getLogger(ComputedRef.class);
 
     /**
      * Creates a new computed value with the given computation.
@@ -49,16 +46,75 @@ public class ComputedRef<T> implements ReadableRef<T>, Dependent {
     }
 
     public ComputedRef(Supplier<T> computation, boolean lazy) {
+        this(computation, lazy, Equality.objectEquals());
+    }
+
+    /**
+     * Creates a new computed value with a strategy deciding which results are changes.
+     *
+     * @param computation The computation
+     * @param equality    Results equal to the cached value do not notify subscribers or dependents
+     */
+    public ComputedRef(Supplier<T> computation, Equality<? super T> equality) {
+        this(computation, true, equality);
+    }
+
+    public ComputedRef(Supplier<T> computation, boolean lazy, Equality<? super T> equality) {
+        this(DependencyTracker.getInstance(), SHARED_RUNTIME, null, computation, lazy, equality);
+    }
+
+    /**
+     * Creates a new computed value in the graph of the given runtime.
+     * Eager recomputations run on the runtime's recompute scheduler.
+     */
+    public ComputedRef(JSignalsRuntime runtime, Supplier<T> computation, boolean lazy, Equality<? super T> equality) {
+        this(runtime.getTracker(), runtime.getRecomputeScheduler(), null, computation, lazy, equality);
+    }
+
+    /**
+     * Creates a new computed value that depends on the given sources only. It re-runs when one of
+     * them changes; its runs are not tracked, so other values it reads never make it re-run.
+     */
+    public ComputedRef(Dependencies dependencies, Supplier<T> computation) {
+        this(dependencies, computation, Equality.objectEquals());
+    }
+
+    public ComputedRef(Dependencies dependencies, Supplier<T> computation, Equality<? super T> equality) {
+        this(DependencyTracker.getInstance(), SHARED_RUNTIME, Objects.requireNonNull(dependencies, "Dependencies cannot be null"),
+                computation, true, equality);
+    }
+
+    /**
+     * Creates a new computed value in the graph of the given runtime, that depends on the given
+     * sources only.
+     */
+    public ComputedRef(JSignalsRuntime runtime, Dependencies dependencies, Supplier<T> computation, boolean lazy, Equality<? super T> equality) {
+        this(runtime.getTracker(), runtime.getRecomputeScheduler(), Objects.requireNonNull(dependencies, "Dependencies cannot be null"),
+                computation, lazy, equality);
+    }
+
+    /**
+     * Creates a lazy computed value in the given graph, like the values derived from a Ref.
+     */
+    ComputedRef(DependencyTracker tracker, Supplier<T> computation) {
+        this(tracker, recomputeSchedulerOf(tracker), null, computation, true, Equality.objectEquals());
+    }
+
+    private ComputedRef(DependencyTracker tracker, Executor executor, Dependencies dependencies, Supplier<T> computation, boolean lazy,
+                        Equality<? super T> equality) {
+        super(tracker, executor, lazy, dependencies);
         this.computation = Objects.requireNonNull(computation, "Computation cannot be null");
-        this.lazy = lazy;
+        this.equality = Objects.requireNonNull(equality, "Equality cannot be null");
 
         recompute(); // Initial computation to set the cached value
     }
 
     private T getVal() {
         // An optimistic read without a lock. If the value is clean, we avoid locking entirely.
-        if (!dirty.get()) {
-            log.trace("Returning cached value without recomputation.");
+        if (isFresh()) {
+            if (TRACE) {
+                log.trace("Returning cached value of {} without recomputation.", getName());
+            }
             return cachedValue.get();
         }
 
@@ -68,8 +124,6 @@ public class ComputedRef<T> implements ReadableRef<T>, Dependent {
 
     @Override
     public T get() {
-        log.trace("ComputedRef.get()");
-
         // First, register that the current running computation (if any) depends on this ComputedRef.
         dependentNotifier.trackAccess();
         return getVal();
@@ -77,20 +131,11 @@ public class ComputedRef<T> implements ReadableRef<T>, Dependent {
 
     @Override
     public T getValue() {
-        log.trace("ComputedRef.getValue()");
         return getVal();
     }
 
-    public boolean isDirty() {
-        return dirty.get();
-    }
-
-    public boolean isComputing() {
-        return computing.get();
-    }
-
-    public boolean isLazy() {
-        return lazy;
+    public Equality<? super T> getEquality() {
+        return equality;
     }
 
     /**
@@ -114,96 +159,108 @@ public class ComputedRef<T> implements ReadableRef<T>, Dependent {
     }
 
     @Override
-    public void onDependencyChanged() {
-        log.debug("Dependency changed, marking ref as dirty...");
-
-        // Atomically set the dirty flag. If we are the thread that successfully
-        // changed it from false to true, then we are responsible for notifying dependents.
-        if (dirty.compareAndSet(false, true)) {
-            // Notify other signals that depend on this ComputedRef.
-            // Direct subscribers will be notified later, only if the value actually changes
-            // during recomputation.
-            // The main purpose here is to have the coordinator notify the dependency graph.
-            dependentNotifier.notifyDependents();
-
-            if (!lazy || subscriptions.hasSubscriptions()) {
-                // Submit a task to call .get(), which will safely trigger the recomputation
-                // on a background thread without blocking the current one.
-                submitTask(this::get);
-            }
-        }
+    boolean hasSubscriptions() {
+        return subscriptions.hasSubscriptions();
     }
 
-    public void invalidate() {
-        log.debug("Invalidating ref...");
-        if (dirty.compareAndSet(false, true)) {
-            dependentNotifier.notifyDependents();
-        }
+    @Override
+    protected void refresh() {
+        getVal();
     }
 
     private T recompute() {
-        // Acquire a read lock first to check the state again. This is more efficient
-        // than immediately acquiring a write lock if another thread just finished.
-        computationLock.readLock().lock();
-        try {
-            if (!dirty.get()) {
-                return cachedValue.get();
-            }
-        } finally {
-            computationLock.readLock().unlock();
+        // Claim the evaluation. Only the claiming thread updates the edges of this ref.
+        if (!claimEvaluation()) {
+            return speculate();
         }
 
-        // If we got here, the value is still dirty. We must acquire the write lock to compute.
-        computationLock.writeLock().lock();
+        T oldValue;
+        T newValue;
+        boolean changed;
+
         try {
-            // Double-check inside the write lock, as another thread might have recomputed
-            // while we were waiting for the lock.
-            if (!dirty.get()) {
+            // If the ref is only possibly stale, bring its sources up to date first.
+            // When none of them actually changed, the cached value is still valid.
+            if (!needsUpdate()) {
+                if (TRACE) {
+                    log.trace("Dependencies of {} unchanged, keeping cached value.", getName());
+                }
                 return cachedValue.get();
             }
 
-            // Check for and prevent circular dependencies.
-            if (!computing.compareAndSet(false, true)) {
-                log.error("Circular dependency detected in ref. Computation is already in progress.");
-                throw new IllegalStateException("Circular dependency detected in ComputedRef.");
+            if (DEBUG) {
+                log.debug("Computing value of {}...", getName());
             }
 
-            log.debug("Computing value...");
-
-            T newValue;
+            boolean completed = false;
+            startEvaluation();
             try {
-                tracker.startTracking(this);
                 newValue = computation.get();
+                completed = true;
             } finally {
-                // CRITICAL: Always release the computing flag and stop tracking.
-                tracker.stopTracking();
-                computing.set(false);
+                finishEvaluation(completed);
             }
 
-            // Atomically set the new value and get the old one back for comparison.
-            T oldValue = cachedValue.getAndSet(newValue);
+            // Publish the new value and get the old one back for comparison.
+            // This must happen before the evaluation is released, as lock-free readers
+            // trust the cached value as soon as the ref is clean and not being evaluated.
+            oldValue = cachedValue.getAndSet(newValue);
 
-            // The computation is done, so the value is no longer dirty.
-            dirty.set(false);
+            changed = !equality.isEqual(oldValue, newValue);
+            if (changed) {
+                incrementVersion();
+            }
+        } finally {
+            // CRITICAL: Always release the evaluation.
+            releaseEvaluation();
+        }
+
+        // If the value actually changed, notify all subscribers. Dependents do not need to be
+        // notified: they were marked stale together with this ref, and will see the new version.
+        if (changed) {
+            if (DEBUG) {
+                log.debug("{} changed from `{}` to `{}`, notifying subscribers...", getName(), oldValue, newValue);
+            }
+            notifySubscribers(oldValue, newValue);
+        }
 
-            log.debug("Computed value: {}", newValue);
+        return newValue;
+    }
 
-            // If the value actually changed, notify all subscribers.
-            if (!Objects.equals(oldValue, newValue)) {
-                log.debug("Value changed from `{}` to `{}`, notifying dependents and subscribers...", oldValue, newValue);
-                notifyDependents(oldValue, newValue);
+    /**
+     * Computes the value on the current thread while another thread evaluates this ref.
+     * The computation is not tracked, so it leaves the edges of this ref alone. If a write
+     * happened while it ran, its result may be torn, and it runs again.
+     */
+    private T speculate() {
+        T result;
+        boolean consistent;
+        int attempts = 0;
+        do {
+            // The evaluation may have been published in the meantime
+            if (isFresh()) {
+                return cachedValue.get();
             }
 
-            return newValue;
-        } finally {
-            computationLock.writeLock().unlock();
+            long clock = startSpeculation();
+            try {
+                result = computation.get();
+            } finally {
+                consistent = finishSpeculation(clock);
+            }
+        } while (!consistent && ++attempts < MAX_SPECULATIVE_ATTEMPTS);
+
+        if (consistent) {
+            return result;
         }
+        // Writes kept racing with every attempt, so the result may be torn. Wait for the
+        // evaluating thread instead, and use its value or evaluate again.
+        awaitEvaluation();
+        return recompute();
     }
 
-    private void notifyDependents(T oldValue, T newValue) {
-        dependentNotifier.notifyDependents(() ->
-                subscriptions.notify(listener -> listener.accept(oldValue, newValue))
-        );
+    private void notifySubscribers(T oldValue, T newValue) {
+        subscriptions.notify(listener -> listener.accept(oldValue, newValue));
     }
 
     @Override
@@ -213,7 +270,7 @@ public class ComputedRef<T> implements ReadableRef<T>, Dependent {
 
     @Override
     public String toString() {
-        return getName() + "{cachedValue=" + cachedValue.get() + ", isDirty=" + dirty.get() + "}";
+        return getName() + "{cachedValue=" + cachedValue.get() + ", isDirty=" + isDirty() + "}";
     }
 
 }
@@ -0,0 +1,57 @@
+package jsignals.core;
+
+import java.util.Objects;
+
+/**
+ * A fixed set of sources, declared up front instead of tracked while a computation runs.
+ * <p>
+ * A computed value or effect created with declared dependencies is wired to them once, when it is
+ * created. Its runs are not tracked at all: it re-runs when one of the declared sources changes,
+ * and values it reads that were not declared never make it re-run. This removes the per-run
+ * tracking cost of fixed pipelines, whose sources never change from one run to the next.
+ */
+public final class Dependencies {
+
+    private final SignalNode[] sources;
+
+    private Dependencies(SignalNode[] sources) {
+        this.sources = sources;
+    }
+
+    /**
+     * Declares the given references as the sources of a computation.
+     *
+     * @throws IllegalArgumentException If a reference is not a node of a reactive graph, e.g. a
+     *                                  {@link ListRef}, or if the references belong to different graphs.
+     */
+    public static Dependencies on(BaseRef... refs) {
+        Objects.requireNonNull(refs, "Dependencies cannot be null");
+        SignalNode[] sources = new SignalNode[refs.length];
+        for (int i = 0; i < refs.length; i++) {
+            BaseRef ref = Objects.requireNonNull(refs[i], "Dependency cannot be null");
+            if (!(ref instanceof SignalNode node)) {
+                throw new IllegalArgumentException("Cannot depend on " + ref.getName() + ", it is not a node of the graph");
+            }
+            if (i > 0 && node.getTracker() != sources[0].getTracker()) {
+                throw new IllegalArgumentException("Dependencies must belong to the same graph");
+            }
+            sources[i] = node;
+        }
+        return new Dependencies(sources);
+    }
+
+    /**
+     * Links the given node to the declared sources. Called once, when the node is created.
+     *
+     * @throws IllegalArgumentException If the sources belong to another graph than the node.
+     */
+    public void wire(SignalNode dependent) {
+        for (SignalNode source : sources) {
+            if (source.getTracker() != dependent.getTracker()) {
+                throw new IllegalArgumentException("Cannot depend on " + source.getName() + ", it belongs to another graph");
+            }
+            dependent.addSource(source);
+        }
+    }
+
+}
@@ -1,8 +1,13 @@
 package jsignals.core;
 
+import jsignals.jfr.JfrEvents;
+import jsignals.jfr.RefSetEvent;
 import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsMetrics;
 
+import java.util.ArrayDeque;
 import java.util.Objects;
+import java.util.Queue;
 
 /**
  * Coordinates notification processes, handling re-entrancy and dependency tracking.
@@ -10,21 +15,41 @@ import java.util.Objects;
  */
 public final class DependentNotifier {
 
-    private final Object source;
+    private final SignalNode source;
 
-    private final DependencyTracker tracker = DependencyTracker.getInstance();
+    private final DependencyTracker tracker;
+
+    private final JSignalsMetrics metrics;
 
     private final Object notificationLock = new Object();
 
-    private volatile boolean isNotifying = false;
+    /**
+     * The thread running the notification in progress, or {@code null} if there is none. Written
+     * under {@link #notificationLock}, but read without it by the reentrancy check: a thread only
+     * ever sets it to itself, so a single read tells whether the current thread is notifying.
+     */
+    private volatile Thread notifyingThread;
+
+    /**
+     * Notifications of writes by other threads, waiting for the notifying thread to run them.
+     * Guarded by {@link #notificationLock}.
+     */
+    private final Queue<Runnable> queuedActions = new ArrayDeque<>();
+
+    /**
+     * Whether a notification is in progress on a confined graph, where only its thread reads it.
+     */
+    private boolean isNotifyingConfined = false;
 
     /**
      * Creates a DependentNotifier for a specific reactive source.
      *
      * @param source The source object (e.g., the Ref or Trigger instance) that owns this coordinator.
      */
-    public DependentNotifier(Object source) {
+    public DependentNotifier(SignalNode source) {
         this.source = Objects.requireNonNull(source, "Notification source cannot be null");
+        this.tracker = source.getTracker();
+        this.metrics = tracker.getMetrics();
     }
 
     /**
@@ -42,35 +67,128 @@ public final class DependentNotifier {
      *                           to the direct subscribers of the source (e.g., calling listeners).
      *                           This action will only be executed if a notification for this
      *                           source is not already in progress. After this action completes,
-     *                           the global dependency tracker is notified.
+     *                           the dependency tracker of the source is notified. If another thread
+     *                           is notifying for this source, the action is queued for that thread,
+     *                           which runs it after its own. Inside a batch, only the first action
+     *                           for this source is kept, and it runs when the outermost batch ends.
      */
     public void notifyDependents(Runnable notificationAction) {
         Objects.requireNonNull(notificationAction, "Direct notification action cannot be null.");
+        metrics.recordRefWrite();
+        if (JfrEvents.isRecording()) {
+            recordSetEvent();
+        }
+
+        // Inside a batch, the graph is marked right away so reads see the new state,
+        // but the direct subscribers and dependents are notified when the batch ends.
+        if (tracker.isBatching()) {
+            tracker.deferNotification(source, notificationAction);
+            tracker.notifyDependents(source);
+            return;
+        }
 
-        // An early check without a lock. This is a minor optimization for the common case
-        // where there is no contention and no notification is in progress.
-        if (isNotifying) {
+        // A confined graph is only used by its own thread, so there is no other writer to queue for
+        if (tracker.isConfined()) {
+            notifyConfined(notificationAction);
             return;
         }
 
+        // A write made by the subscribers of this source while the current thread notifies them is
+        // dropped without taking the lock. Only the current thread can have set the field to
+        // itself, so no other thread can make this read stale.
+        Thread current = Thread.currentThread();
+        if (notifyingThread == current) {
+            return;
+        }
+
+        boolean concurrent;
         synchronized (notificationLock) {
-            // Re-check inside the synchronized block to ensure correctness under contention.
-            if (isNotifying) {
-                return;
+            concurrent = notifyingThread != null;
+            if (concurrent) {
+                // Another thread is notifying, and notifies the subscribers of this write after
+                // its own, so they never run concurrently
+                queuedActions.add(notificationAction);
+            } else {
+                notifyingThread = current;
             }
-            isNotifying = true;
+        }
+
+        if (concurrent) {
+            // The graph is marked right away, or dependents running on the notifying thread
+            // miss this write
+            tracker.notifyDependents(source);
+            return;
         }
 
         try {
             notificationAction.run(); // Notify the direct subscribers first
             tracker.notifyDependents(source); // After direct subscribers are handled, notify dependents in the graph.
+
+            // Then the subscribers of writes by other threads meanwhile, whose dependents were
+            // notified by the writing threads
+            Runnable queued;
+            while ((queued = pollQueuedAction()) != null) {
+                queued.run();
+            }
+        } finally {
+            synchronized (notificationLock) {
+                // Only still notifying if an action failed, in which case the queued ones are
+                // dropped, as the next notification may report a later value already
+                if (notifyingThread == current) {
+                    queuedActions.clear();
+                    notifyingThread = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifies without the lock, for a graph confined to the current thread.
+     */
+    private void notifyConfined(Runnable notificationAction) {
+        tracker.checkConfined();
+        if (isNotifyingConfined) {
+            return;
+        }
+        isNotifyingConfined = true;
+        try {
+            notificationAction.run();
+            tracker.notifyDependents(source);
         } finally {
-            // The state must be reset to allow future notifications.
-            // This is not synchronized, as we only ever care about setting it back to false.
-            isNotifying = false;
+            isNotifyingConfined = false;
+        }
+    }
+
+    /**
+     * Takes the next queued action, or ends the notification in progress if there is none, so no
+     * action can be queued after the last one was taken.
+     */
+    private Runnable pollQueuedAction() {
+        synchronized (notificationLock) {
+            Runnable next = queuedActions.poll();
+            if (next == null) {
+                notifyingThread = null;
+            }
+            return next;
+        }
+    }
+
+    private void recordSetEvent() {
+        RefSetEvent event = new RefSetEvent();
+        if (event.isEnabled()) {
+            event.source = source.getName();
+            event.batched = tracker.isBatching();
+            event.commit();
         }
     }
 
+    /**
+     * Records a write to the source that was dropped because the value did not change.
+     */
+    public void recordSuppressedWrite() {
+        metrics.recordSuppressedWrite();
+    }
+
     /**
      * Notifies dependents without any direct subscribers.
      * This is useful when the source has changed but there are no direct listeners to notify.
@@ -83,15 +201,23 @@ public final class DependentNotifier {
         });
     }
 
+    /**
+     * Checks if a batch is open on the current thread, in which case notifications are deferred
+     * until it ends.
+     *
+     * @return true if batching, false otherwise.
+     */
+    public boolean isBatching() {
+        return tracker.isBatching();
+    }
+
     /**
      * Checks if this coordinator is currently in the process of notifying.
      *
      * @return true if notifying, false otherwise.
      */
     public boolean isNotifying() {
-        synchronized (notificationLock) {
-            return isNotifying;
-        }
+        return notifyingThread != null || isNotifyingConfined;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package jsignals.core;
+
+/**
+ * Listens to changes of a reactive {@code double} value, without boxing.
+ */
+@FunctionalInterface
+public interface DoubleChangeListener {
+
+    /**
+     * Called when the value changed.
+     *
+     * @param oldValue The previous value.
+     * @param newValue The new value.
+     */
+    void onChange(double oldValue, double newValue);
+
+}
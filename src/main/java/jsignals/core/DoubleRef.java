@@ -0,0 +1,107 @@
+package jsignals.core;
+
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsRuntime;
+
+import java.util.Objects;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A reactive reference holding a {@code double}, the primitive counterpart of {@code Ref<Double>}.
+ * Reads, writes and change notifications never box the value.
+ * <p>
+ * Takes part in the dependency graph like any other node: a {@link ComputedRef} or an effect that
+ * calls {@link #get()} depends on this reference.
+ */
+public class DoubleRef extends PrimitiveRef<DoubleChangeListener> {
+
+    /**
+     * Creates a new DoubleRef with an initial value of zero.
+     */
+    public DoubleRef() {
+        this(0.0);
+    }
+
+    /**
+     * Creates a new DoubleRef with an initial value.
+     */
+    public DoubleRef(double initialValue) {
+        this(DependencyTracker.getInstance(), initialValue);
+    }
+
+    /**
+     * Creates a new DoubleRef in the graph of the given runtime.
+     */
+    public DoubleRef(JSignalsRuntime runtime, double initialValue) {
+        this(runtime.getTracker(), initialValue);
+    }
+
+    private DoubleRef(DependencyTracker tracker, double initialValue) {
+        super(tracker, Double.doubleToLongBits(initialValue));
+    }
+
+    /**
+     * Gets the current value and tracks this access for reactivity.
+     */
+    public double get() {
+        return Double.longBitsToDouble(getBits());
+    }
+
+    /**
+     * Gets the current value without tracking (peek).
+     */
+    public double getValue() {
+        return Double.longBitsToDouble(peekBits());
+    }
+
+    /**
+     * Sets a new value and triggers updates to dependents.
+     */
+    public void set(double newValue) {
+        setBits(Double.doubleToLongBits(newValue));
+    }
+
+    /**
+     * Updates the value using a function and triggers updates.
+     * The function may be called more than once if the value is written concurrently.
+     */
+    public void update(DoubleUnaryOperator updater) {
+        Objects.requireNonNull(updater, "Updater function cannot be null");
+        updateBits(bits -> Double.doubleToLongBits(updater.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+
+    /**
+     * Subscribes to value changes.
+     *
+     * @param listener Called with the new value when the value changes
+     * @return A Disposable to unsubscribe
+     */
+    public Disposable watch(DoubleConsumer listener) {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        return subscribe((_, newValue) -> listener.accept(newValue));
+    }
+
+    /**
+     * Subscribes to value changes with access to old and new values.
+     */
+    public Disposable watch(DoubleChangeListener listener) {
+        return subscribe(listener);
+    }
+
+    @Override
+    void onChange(DoubleChangeListener listener, long oldBits, long newBits) {
+        listener.onChange(Double.longBitsToDouble(oldBits), Double.longBitsToDouble(newBits));
+    }
+
+    @Override
+    public String getName() {
+        return "DoubleRef@" + Integer.toHexString(getId());
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "{value=" + getValue() + "}";
+    }
+
+}
@@ -0,0 +1,77 @@
+package jsignals.core;
+
+import java.util.Objects;
+import java.util.function.BiPredicate;
+
+/**
+ * Decides whether a new value of a reactive reference is the same as the old one.
+ * When it is, subscribers and dependents are not notified.
+ * <p>
+ * The default strategy is {@link #objectEquals()}, which may be an O(n) deep comparison for large
+ * values. References holding large immutable values can use {@link #identity()} instead, and
+ * references whose every write is meaningful can use {@link #never()}.
+ *
+ * @param <T> The type of the compared values.
+ */
+@FunctionalInterface
+public interface Equality<T> {
+
+    /**
+     * Compares two values.
+     *
+     * @param oldValue The previous value.
+     * @param newValue The new value.
+     * @return {@code true} if the values are the same and no notification is needed.
+     */
+    boolean isEqual(T oldValue, T newValue);
+
+    /**
+     * Values are the same if they are equal according to {@link Objects#equals(Object, Object)}.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Equality<T> objectEquals() {
+        return (Equality<T>) Strategies.OBJECT_EQUALS;
+    }
+
+    /**
+     * Values are the same only if they are the same instance.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Equality<T> identity() {
+        return (Equality<T>) Strategies.IDENTITY;
+    }
+
+    /**
+     * Values are never the same, so every write notifies.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Equality<T> never() {
+        return (Equality<T>) Strategies.NEVER;
+    }
+
+    /**
+     * Adapts a custom predicate.
+     *
+     * @param predicate Returns {@code true} if the values are the same.
+     */
+    static <T> Equality<T> of(BiPredicate<? super T, ? super T> predicate) {
+        Objects.requireNonNull(predicate, "Equality predicate cannot be null");
+        return predicate::test;
+    }
+
+    /**
+     * Shared instances of the built-in strategies.
+     */
+    final class Strategies {
+
+        private static final Equality<Object> OBJECT_EQUALS = Objects::equals;
+
+        private static final Equality<Object> IDENTITY = (oldValue, newValue) -> oldValue == newValue;
+
+        private static final Equality<Object> NEVER = (oldValue, newValue) -> false;
+
+        private Strategies() { }
+
+    }
+
+}
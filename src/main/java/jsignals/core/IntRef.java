@@ -0,0 +1,107 @@
+package jsignals.core;
+
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsRuntime;
+
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A reactive reference holding a {@code int}, the primitive counterpart of {@code Ref<Integer>}.
+ * Reads, writes and change notifications never box the value.
+ * <p>
+ * Takes part in the dependency graph like any other node: a {@link ComputedRef} or an effect that
+ * calls {@link #get()} depends on this reference.
+ */
+public class IntRef extends PrimitiveRef<IntChangeListener> {
+
+    /**
+     * Creates a new IntRef with an initial value of zero.
+     */
+    public IntRef() {
+        this(0);
+    }
+
+    /**
+     * Creates a new IntRef with an initial value.
+     */
+    public IntRef(int initialValue) {
+        this(DependencyTracker.getInstance(), initialValue);
+    }
+
+    /**
+     * Creates a new IntRef in the graph of the given runtime.
+     */
+    public IntRef(JSignalsRuntime runtime, int initialValue) {
+        this(runtime.getTracker(), initialValue);
+    }
+
+    private IntRef(DependencyTracker tracker, int initialValue) {
+        super(tracker, initialValue);
+    }
+
+    /**
+     * Gets the current value and tracks this access for reactivity.
+     */
+    public int get() {
+        return (int) getBits();
+    }
+
+    /**
+     * Gets the current value without tracking (peek).
+     */
+    public int getValue() {
+        return (int) peekBits();
+    }
+
+    /**
+     * Sets a new value and triggers updates to dependents.
+     */
+    public void set(int newValue) {
+        setBits(newValue);
+    }
+
+    /**
+     * Updates the value using a function and triggers updates.
+     * The function may be called more than once if the value is written concurrently.
+     */
+    public void update(IntUnaryOperator updater) {
+        Objects.requireNonNull(updater, "Updater function cannot be null");
+        updateBits(bits -> updater.applyAsInt((int) bits));
+    }
+
+    /**
+     * Subscribes to value changes.
+     *
+     * @param listener Called with the new value when the value changes
+     * @return A Disposable to unsubscribe
+     */
+    public Disposable watch(IntConsumer listener) {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        return subscribe((_, newValue) -> listener.accept(newValue));
+    }
+
+    /**
+     * Subscribes to value changes with access to old and new values.
+     */
+    public Disposable watch(IntChangeListener listener) {
+        return subscribe(listener);
+    }
+
+    @Override
+    void onChange(IntChangeListener listener, long oldBits, long newBits) {
+        listener.onChange((int) oldBits, (int) newBits);
+    }
+
+    @Override
+    public String getName() {
+        return "IntRef@" + Integer.toHexString(getId());
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "{value=" + getValue() + "}";
+    }
+
+}
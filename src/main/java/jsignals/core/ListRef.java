@@ -28,6 +28,17 @@ public class ListRef<T> implements ReadableRef<List<T>> {
         this.listRef = new Ref<>(Collections.emptyList());
     }
 
+    /**
+     * Creates a new ListRef initialized with an empty immutable list, and a strategy deciding
+     * which modifications are changes. As every modification produces a new list,
+     * {@link Equality#identity()} avoids comparing large lists element by element.
+     *
+     * @param equality The strategy used to compare the old and new lists. Must not be null.
+     */
+    public ListRef(Equality<? super List<T>> equality) {
+        this.listRef = new Ref<>(Collections.emptyList(), equality);
+    }
+
     /**
      * Creates a new ListRef initialized with a copy of the provided list.
      * The provided list is copied to ensure immutability.
@@ -39,6 +50,18 @@ public class ListRef<T> implements ReadableRef<List<T>> {
         this.listRef = new Ref<>(List.copyOf(initialList));
     }
 
+    /**
+     * Creates a new ListRef initialized with a copy of the provided list, and a strategy deciding
+     * which modifications are changes.
+     *
+     * @param initialList The initial list of elements. Must not be null.
+     * @param equality    The strategy used to compare the old and new lists. Must not be null.
+     */
+    public ListRef(Collection<? extends T> initialList, Equality<? super List<T>> equality) {
+        Objects.requireNonNull(initialList, "Initial list cannot be null");
+        this.listRef = new Ref<>(List.copyOf(initialList), equality);
+    }
+
     /**
      * Creates a new ListRef initialized with the provided elements.
      *
@@ -0,0 +1,17 @@
+package jsignals.core;
+
+/**
+ * Listens to changes of a reactive {@code long} value, without boxing.
+ */
+@FunctionalInterface
+public interface LongChangeListener {
+
+    /**
+     * Called when the value changed.
+     *
+     * @param oldValue The previous value.
+     * @param newValue The new value.
+     */
+    void onChange(long oldValue, long newValue);
+
+}
@@ -0,0 +1,107 @@
+package jsignals.core;
+
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsRuntime;
+
+import java.util.Objects;
+import java.util.function.LongConsumer;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A reactive reference holding a {@code long}, the primitive counterpart of {@code Ref<Long>}.
+ * Reads, writes and change notifications never box the value.
+ * <p>
+ * Takes part in the dependency graph like any other node: a {@link ComputedRef} or an effect that
+ * calls {@link #get()} depends on this reference.
+ */
+public class LongRef extends PrimitiveRef<LongChangeListener> {
+
+    /**
+     * Creates a new LongRef with an initial value of zero.
+     */
+    public LongRef() {
+        this(0L);
+    }
+
+    /**
+     * Creates a new LongRef with an initial value.
+     */
+    public LongRef(long initialValue) {
+        this(DependencyTracker.getInstance(), initialValue);
+    }
+
+    /**
+     * Creates a new LongRef in the graph of the given runtime.
+     */
+    public LongRef(JSignalsRuntime runtime, long initialValue) {
+        this(runtime.getTracker(), initialValue);
+    }
+
+    private LongRef(DependencyTracker tracker, long initialValue) {
+        super(tracker, initialValue);
+    }
+
+    /**
+     * Gets the current value and tracks this access for reactivity.
+     */
+    public long get() {
+        return getBits();
+    }
+
+    /**
+     * Gets the current value without tracking (peek).
+     */
+    public long getValue() {
+        return peekBits();
+    }
+
+    /**
+     * Sets a new value and triggers updates to dependents.
+     */
+    public void set(long newValue) {
+        setBits(newValue);
+    }
+
+    /**
+     * Updates the value using a function and triggers updates.
+     * The function may be called more than once if the value is written concurrently.
+     */
+    public void update(LongUnaryOperator updater) {
+        Objects.requireNonNull(updater, "Updater function cannot be null");
+        updateBits(updater);
+    }
+
+    /**
+     * Subscribes to value changes.
+     *
+     * @param listener Called with the new value when the value changes
+     * @return A Disposable to unsubscribe
+     */
+    public Disposable watch(LongConsumer listener) {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        return subscribe((_, newValue) -> listener.accept(newValue));
+    }
+
+    /**
+     * Subscribes to value changes with access to old and new values.
+     */
+    public Disposable watch(LongChangeListener listener) {
+        return subscribe(listener);
+    }
+
+    @Override
+    void onChange(LongChangeListener listener, long oldBits, long newBits) {
+        listener.onChange(oldBits, newBits);
+    }
+
+    @Override
+    public String getName() {
+        return "LongRef@" + Integer.toHexString(getId());
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "{value=" + getValue() + "}";
+    }
+
+}
@@ -0,0 +1,259 @@
+package jsignals.core;
+
+import jsignals.util.JSignalsLogger;
+import org.slf4j.Logger;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * An ownership scope, which disposes what was created in it when it is disposed.
+ * <p>
+ * While an owner runs code, it is the current owner of the thread. Effects, computed values and
+ * watchers created by that code are owned by it, as are cleanup hooks registered with
+ * {@link #onCleanup(Runnable)}. Every effect and computed value is itself an owner while it runs:
+ * what its previous run created is disposed, and its cleanup hooks run, before it runs again and
+ * when it is disposed. Owners form a tree, so disposing a screen or a session disposes everything
+ * that was created for it, in reverse order of creation, in time proportional to the number of
+ * owned nodes.
+ * <p>
+ * Something disposed by hand is dropped by its owner right away, so a long-lived scope does not
+ * keep what was disposed before it.
+ */
+public final class Owner implements Disposable {
+
+    private static final Logger log = JSignalsLogger.getLogger(Owner.class);
+
+    private static final ThreadLocal<Owner> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The entries of what this owner disposes, by identity. Allocated on first use.
+     */
+    private Map<Disposable, Entry> owned;
+
+    /**
+     * The most recent entry. Entries are linked in order of creation, so they are disposed in
+     * reverse order, and can be dropped in constant time.
+     */
+    private Entry last;
+
+    private boolean disposed;
+
+    /**
+     * The owner that owns this one, or {@code null}.
+     */
+    private final Owner parent;
+
+    /**
+     * Creates an owner that is not owned by any other. Prefer {@link #root(Consumer)}.
+     */
+    public Owner() {
+        this(null);
+    }
+
+    private Owner(Owner parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Returns the owner of the code running on the current thread, or {@code null} if none.
+     */
+    public static Owner current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Creates a new owner, and runs the body with it as the current owner. The owner is owned by
+     * the current owner, if any, so nested roots are disposed with their parent.
+     *
+     * @param body Creates what the new owner owns. Receives the owner, to dispose it later.
+     * @return The new owner.
+     */
+    public static Owner root(Consumer<Owner> body) {
+        Objects.requireNonNull(body, "Body cannot be null");
+        Owner parent = CURRENT.get();
+        Owner owner = new Owner(parent);
+        if (parent != null) {
+            parent.own(owner);
+        }
+        Owner previous = enter(owner);
+        try {
+            body.accept(owner);
+        } finally {
+            exit(previous);
+        }
+        return owner;
+    }
+
+    /**
+     * Makes the given owner current on this thread.
+     *
+     * @return The previous owner, to pass to {@link #exit(Owner)}.
+     */
+    static Owner enter(Owner owner) {
+        Owner previous = CURRENT.get();
+        CURRENT.set(owner);
+        return previous;
+    }
+
+    /**
+     * Restores the owner that was current before {@link #enter(Owner)}.
+     */
+    static void exit(Owner previous) {
+        CURRENT.set(previous);
+    }
+
+    /**
+     * Registers something created in the current scope with its owner, if any.
+     *
+     * @return The owner, to {@linkplain #disown(Disposable) drop} the disposable from when it is
+     * disposed by hand, or {@code null}.
+     */
+    static Owner adopt(Disposable disposable) {
+        Owner owner = CURRENT.get();
+        if (owner != null) {
+            owner.own(disposable);
+        }
+        return owner;
+    }
+
+    /**
+     * Runs an action with this owner as the current owner.
+     */
+    public void run(Runnable action) {
+        Owner previous = enter(this);
+        try {
+            action.run();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    /**
+     * Makes this owner dispose the given disposable. If this owner has been disposed already, it is
+     * disposed right away.
+     */
+    public void own(Disposable disposable) {
+        Objects.requireNonNull(disposable, "Disposable cannot be null");
+        synchronized (this) {
+            if (!disposed) {
+                if (owned == null) {
+                    owned = new IdentityHashMap<>();
+                }
+                if (!owned.containsKey(disposable)) {
+                    Entry entry = new Entry(disposable, last);
+                    if (last != null) {
+                        last.next = entry;
+                    }
+                    last = entry;
+                    owned.put(disposable, entry);
+                }
+                return;
+            }
+        }
+        disposable.dispose();
+    }
+
+    /**
+     * Stops owning the given disposable, without disposing it. Called by what this owner owns
+     * when it is disposed by hand, so it is not referenced any longer.
+     */
+    public void disown(Disposable disposable) {
+        synchronized (this) {
+            if (owned == null) {
+                return;
+            }
+            Entry entry = owned.remove(disposable);
+            if (entry == null) {
+                return;
+            }
+            if (entry.previous != null) {
+                entry.previous.next = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.previous = entry.previous;
+            } else {
+                last = entry.previous;
+            }
+        }
+    }
+
+    /**
+     * Registers a hook that runs when this owner is disposed or re-runs.
+     */
+    public void onCleanup(Runnable cleanup) {
+        Objects.requireNonNull(cleanup, "Cleanup cannot be null");
+        own(cleanup::run);
+    }
+
+    /**
+     * Disposes what this owner owns, most recent first, and runs its cleanup hooks, but keeps the
+     * owner usable. Called before an effect or computed value re-runs.
+     */
+    public void disposeOwned() {
+        Entry entry;
+        synchronized (this) {
+            // Detached first, so what disposes itself below finds nothing to disown
+            entry = last;
+            last = null;
+            owned = null;
+        }
+
+        for (; entry != null; entry = entry.previous) {
+            try {
+                entry.disposable.dispose();
+            } catch (Exception e) {
+                log.error("Error disposing owned node: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Disposes what this owner owns, and everything registered with it from now on.
+     */
+    @Override
+    public void dispose() {
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            disposed = true;
+        }
+        disposeOwned();
+        if (parent != null) {
+            parent.disown(this);
+        }
+    }
+
+    public synchronized boolean isDisposed() {
+        return disposed;
+    }
+
+    /**
+     * Returns how many disposables this owner currently owns.
+     */
+    synchronized int ownedCount() {
+        return owned == null ? 0 : owned.size();
+    }
+
+    /**
+     * An owned disposable, linked to the ones owned before and after it.
+     */
+    private static final class Entry {
+
+        private final Disposable disposable;
+
+        private Entry previous;
+
+        private Entry next;
+
+        Entry(Disposable disposable, Entry previous) {
+            this.disposable = disposable;
+            this.previous = previous;
+        }
+
+    }
+
+}
@@ -0,0 +1,124 @@
+package jsignals.core;
+
+import jsignals.runtime.DependencyTracker;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * The writes and notifications shared by the references holding a primitive value.
+ * <p>
+ * The value is kept as the bits of a {@code long}. Subclasses encode their type so that two values
+ * are equal exactly when their bits are, which lets writes swap and compare values without boxing
+ * them. They only add typed accessors, and pass the decoded values to their typed listeners.
+ *
+ * @param <L> The type of the change listeners.
+ */
+abstract class PrimitiveRef<L> extends SignalNode implements BaseRef {
+
+    private final AtomicLong bits;
+
+    private final DependentNotifier dependentNotifier;
+
+    private final SubscriptionNotifier<L> subscriptions = new SubscriptionNotifier<>();
+
+    PrimitiveRef(DependencyTracker tracker, long initialBits) {
+        super(tracker);
+        this.bits = new AtomicLong(initialBits);
+        this.dependentNotifier = new DependentNotifier(this);
+    }
+
+    @Override
+    public abstract String getName();
+
+    /**
+     * Calls a listener with the values decoded from the given bits.
+     */
+    abstract void onChange(L listener, long oldBits, long newBits);
+
+    /**
+     * Gets the bits of the current value and tracks this access for reactivity.
+     */
+    final long getBits() {
+        dependentNotifier.trackAccess();
+        return bits.get();
+    }
+
+    /**
+     * Gets the bits of the current value without tracking.
+     */
+    final long peekBits() {
+        return bits.get();
+    }
+
+    /**
+     * Sets the bits of a new value and triggers updates to dependents.
+     */
+    final void setBits(long newBits) {
+        long oldBits = bits.getAndSet(newBits);
+
+        // Notify dependents only if the value has changed
+        if (oldBits != newBits) {
+            notifyDependents(oldBits, newBits);
+        } else {
+            dependentNotifier.recordSuppressedWrite();
+        }
+    }
+
+    /**
+     * Updates the bits of the value using a function and triggers updates.
+     * The function may be called more than once if the value is written concurrently.
+     */
+    final void updateBits(LongUnaryOperator updater) {
+        long oldBits;
+        long newBits;
+
+        do {
+            oldBits = bits.get();
+            newBits = updater.applyAsLong(oldBits);
+        } while (!bits.compareAndSet(oldBits, newBits));
+
+        // Notify dependents only if the value has changed
+        if (oldBits != newBits) {
+            notifyDependents(oldBits, newBits);
+        } else {
+            dependentNotifier.recordSuppressedWrite();
+        }
+    }
+
+    @Override
+    public void onDependencyChanged() {
+        // A reference has no dependencies; all changes come through its writes.
+    }
+
+    /**
+     * Notifies all dependents that the value has changed, once per batch if a batch is open.
+     */
+    private void notifyDependents(final long oldBits, final long newBits) {
+        if (dependentNotifier.isBatching()) {
+            // Only the notification for the first write in a batch is kept. When the batch ends,
+            // it reports the change from the value before that write to the final value.
+            dependentNotifier.notifyDependents(() -> {
+                long currentBits = bits.get();
+                if (oldBits != currentBits) {
+                    subscriptions.notify(listener -> onChange(listener, oldBits, currentBits));
+                }
+            });
+            return;
+        }
+
+        dependentNotifier.notifyDependents(() ->
+                subscriptions.notify(listener -> onChange(listener, oldBits, newBits))
+        );
+    }
+
+    /**
+     * Subscribes to value changes with access to old and new values.
+     */
+    final Disposable subscribe(L listener) {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        return subscriptions.add(listener);
+    }
+
+}
@@ -1,6 +1,7 @@
 package jsignals.core;
 
-import jsignals.runtime.DependencyTracker.Dependent;
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsRuntime;
 import jsignals.util.JSignalsLogger;
 import jsignals.util.WeakLRUCache;
 import org.slf4j.Logger;
@@ -11,23 +12,54 @@ import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import static jsignals.util.JSignalsLogger.DEBUG;
+import static jsignals.util.JSignalsLogger.TRACE;
+
 /**
  * A reactive reference holding a value of type T.
  * Thread-safe implementation supporting concurrent reads and writes.
  */
-public class Ref<T> implements WritableRef<T>, Dependent {
+public class Ref<T> extends SignalNode implements WritableRef<T> {
 
     private final AtomicReference<T> value;
     private final DependentNotifier dependentNotifier;
     private final SubscriptionNotifier<BiConsumer<T, T>> subscriptions;
+    private final Equality<? super T> equality;
 
-    private final Logger log = JSignalsLogger.getLogger(getName());
+    private static final Logger log = JSignalsLogger.getLogger(Ref.class);
 
     /**
      * Creates a new Ref with an initial value.
      */
     public Ref(T initialValue) {
+        this(initialValue, Equality.objectEquals());
+    }
+
+    /**
+     * Creates a new Ref with an initial value and a strategy deciding which writes are changes.
+     *
+     * @param initialValue The initial value
+     * @param equality     Writes of a value equal to the current one do not notify
+     */
+    public Ref(T initialValue, Equality<? super T> equality) {
+        this(DependencyTracker.getInstance(), initialValue, equality);
+    }
+
+    /**
+     * Creates a new Ref in the graph of the given runtime.
+     *
+     * @param runtime      The runtime this Ref belongs to
+     * @param initialValue The initial value
+     * @param equality     Writes of a value equal to the current one do not notify
+     */
+    public Ref(JSignalsRuntime runtime, T initialValue, Equality<? super T> equality) {
+        this(runtime.getTracker(), initialValue, equality);
+    }
+
+    private Ref(DependencyTracker tracker, T initialValue, Equality<? super T> equality) {
+        super(tracker);
         this.value = new AtomicReference<>(initialValue);
+        this.equality = Objects.requireNonNull(equality, "Equality cannot be null");
         this.dependentNotifier = new DependentNotifier(this);
         this.subscriptions = new SubscriptionNotifier<>();
     }
@@ -55,8 +87,10 @@ public class Ref<T> implements WritableRef<T>, Dependent {
         T oldValue = value.getAndSet(newValue);
 
         // Notify dependents only if the value has changed
-        if (!Objects.equals(oldValue, newValue)) {
+        if (!equality.isEqual(oldValue, newValue)) {
             notifyDependents(oldValue, newValue);
+        } else {
+            dependentNotifier.recordSuppressedWrite();
         }
     }
 
@@ -73,8 +107,10 @@ public class Ref<T> implements WritableRef<T>, Dependent {
         } while (!value.compareAndSet(oldValue, newValue));
 
         // Notify dependents only if the value has changed
-        if (!Objects.equals(oldValue, newValue)) {
+        if (!equality.isEqual(oldValue, newValue)) {
             notifyDependents(oldValue, newValue);
+        } else {
+            dependentNotifier.recordSuppressedWrite();
         }
     }
 
@@ -83,19 +119,36 @@ public class Ref<T> implements WritableRef<T>, Dependent {
         // This method is called by the DependencyTracker when a dependency changes.
         // In this case, we do not need to do anything here because Ref does not have dependencies.
         // All changes are handled through set() or update() methods.
-        log.trace("Dependency changed, but Ref does not track dependencies directly.");
+        if (TRACE) {
+            log.trace("Dependency of {} changed, but Ref does not track dependencies directly.", getName());
+        }
     }
 
     /**
      * Notifies all dependents that the value has changed.
      * This method is called internally when the value is set or updated.
-     * It ensures that all subscribers are notified of the change.
+     * It ensures that all subscribers are notified of the change, once per batch if a batch is open.
      *
      * @param oldValue The previous value
      * @param newValue The new value
      */
     void notifyDependents(final T oldValue, final T newValue) {
-        log.debug("Value changed from {} to {}, notifying dependents...", oldValue, newValue);
+        if (DEBUG) {
+            log.debug("{} changed from {} to {}, notifying dependents...", getName(), oldValue, newValue);
+        }
+
+        if (dependentNotifier.isBatching()) {
+            // Only the notification for the first write in a batch is kept. When the batch ends,
+            // it reports the change from the value before that write to the final value.
+            dependentNotifier.notifyDependents(() -> {
+                T currentValue = value.get();
+                if (!equality.isEqual(oldValue, currentValue)) {
+                    subscriptions.notify(listener -> listener.accept(oldValue, currentValue));
+                }
+            });
+            return;
+        }
+
         dependentNotifier.notifyDependents(() ->
                 subscriptions.notify(listener -> listener.accept(oldValue, newValue))
         );
@@ -133,7 +186,7 @@ public class Ref<T> implements WritableRef<T>, Dependent {
 
     public <U> ComputedRef<U> map(Function<T, U> mapper) {
         Objects.requireNonNull(mapper, "Mapper function cannot be null");
-        return new ComputedRef<>(() -> mapper.apply(get()));
+        return new ComputedRef<>(getTracker(), () -> mapper.apply(get()));
     }
 
     public <U> ComputedRef<U> flatMap(Function<? super T, ? extends ReadableRef<U>> mapper) {
@@ -141,8 +194,8 @@ public class Ref<T> implements WritableRef<T>, Dependent {
 
         final WeakLRUCache<T, ReadableRef<U>> cache = new WeakLRUCache<>();
 
-        // Create a ComputedRef that performs the "flattening".
-        return new ComputedRef<>(() -> {
+        // Create a ComputedRef that performs the "flattening", in the graph of this Ref.
+        return new ComputedRef<>(getTracker(), () -> {
             // 1. Get the current value of the outer Ref. This establishes a dependency.
             //    When this outer Ref changes, this whole computation will re-run.
             T outerValue = this.get();
@@ -157,12 +210,16 @@ public class Ref<T> implements WritableRef<T>, Dependent {
     }
 
     public Ref<T> copy() {
-        return new Ref<>(value.get());
+        return new Ref<>(getTracker(), value.get(), equality);
     }
 
     public <U> Ref<U> copy(Function<T, U> mapper) {
         Objects.requireNonNull(mapper, "Mapper function cannot be null");
-        return new Ref<>(mapper.apply(value.get()));
+        return new Ref<>(getTracker(), mapper.apply(value.get()), Equality.objectEquals());
+    }
+
+    public Equality<? super T> getEquality() {
+        return equality;
     }
 
     public String getName() {
@@ -1,4 +1,739 @@
 package jsignals.core;
 
-public class SignalNode<T> {
+import jsignals.runtime.ComputationProfile;
+import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.DependencyTracker.Dependent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A node in the reactive dependency graph.
+ * <p>
+ * Every reactive primitive extends this class. A node owns its edges directly: the sources it
+ * read during its last computation, and the observers that read it. Tracking and notification
+ * walk these edges, so neither of them touches a global lookup table.
+ * <p>
+ * Observers are referenced weakly by their sources. A computation that is no longer reachable
+ * from user code can be garbage collected even if the values it read are still alive.
+ * <p>
+ * Propagation is split in two phases. When a source changes, its observers are marked
+ * {@link #DIRTY} and everything downstream of them {@link #CHECK}, without running any user code.
+ * Afterwards, nodes are re-evaluated on demand: a node in {@code CHECK} first brings its sources
+ * up to date and only re-runs if one of them actually changed. This keeps diamond-shaped graphs
+ * glitch-free and runs every node at most once per change.
+ * <p>
+ * A node belongs to the graph of the {@link DependencyTracker} it was created with. Nodes created
+ * without one belong to the default graph; nodes created through a
+ * {@link jsignals.runtime.JSignalsRuntime} belong to the graph of that runtime.
+ */
+public abstract class SignalNode implements Dependent {
+
+    /**
+     * The node is up to date with all of its sources.
+     */
+    public static final int CLEAN = 0;
+
+    /**
+     * A node upstream of this one changed, so one of the sources may have changed.
+     */
+    public static final int CHECK = 1;
+
+    /**
+     * A direct source changed, so the node must re-run.
+     */
+    public static final int DIRTY = 2;
+
+    private static final VarHandle STATE;
+
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STATE = lookup.findVarHandle(SignalNode.class, "state", int.class);
+            VERSION = lookup.findVarHandle(SignalNode.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final Edge[] NO_EDGES = new Edge[0];
+
+    private final DependencyTracker tracker;
+
+    /**
+     * Edges to the nodes read by this node's last computation.
+     * Only mutated by the thread currently computing this node. The edge objects are kept across
+     * runs and reused when the same sources are read again, so a stable computation does not
+     * allocate edges.
+     */
+    private Edge[] sources = NO_EDGES;
+
+    private int sourceCount;
+
+    /**
+     * During a run, the number of sources tracked so far. They occupy the first slots of
+     * {@link #sources}, in the order they were read.
+     */
+    private int trackedCount;
+
+    /**
+     * Incremented at the start of every run. An edge stamped with the current epoch has already
+     * been tracked by the current run.
+     */
+    private int runEpoch;
+
+    /**
+     * Head of the intrusive list of edges to the nodes that read this node.
+     * Mutations are guarded by {@code this}, unless the graph is confined to a single thread;
+     * traversal is lock-free.
+     */
+    private volatile Edge observers;
+
+    /**
+     * The edge that most recently tracked a read of this node. Only a hint for de-duplication;
+     * it may be overwritten concurrently by other observers.
+     */
+    private Edge lastTracked;
+
+    /**
+     * One of {@link #CLEAN}, {@link #CHECK} or {@link #DIRTY}.
+     * A node starts out dirty, as it has not run yet.
+     */
+    private volatile int state = DIRTY;
+
+    /**
+     * Incremented every time the value of this node changes.
+     */
+    private volatile long version;
+
+    /**
+     * Longest path from a root source to this node. Used to order re-evaluation.
+     */
+    private int height;
+
+    /**
+     * Whether a node downstream must be notified of every change, even while this node is stale
+     * already. Set on the sources of such a node, transitively, and never cleared.
+     */
+    private volatile boolean forwardsChanges;
+
+    private volatile String debugLabel;
+
+    /**
+     * Statistics of the sampled runs of this node's computation, once profiled.
+     */
+    private volatile ComputationProfile profile;
+
+    /**
+     * Creates a node in the default graph.
+     */
+    protected SignalNode() {
+        this(DependencyTracker.getInstance());
+    }
+
+    /**
+     * Creates a node in the graph of the given tracker.
+     */
+    protected SignalNode(DependencyTracker tracker) {
+        this.tracker = Objects.requireNonNull(tracker, "Tracker cannot be null");
+        tracker.registerNode(this);
+    }
+
+    /**
+     * Returns the tracker of the graph this node belongs to.
+     */
+    public final DependencyTracker getTracker() {
+        return tracker;
+    }
+
+    /**
+     * Called when a dependency of this node has changed.
+     * Source nodes have no dependencies, so the default implementation does nothing.
+     */
+    @Override
+    public void onDependencyChanged() { }
+
+    /**
+     * Whether this node must be revisited once the graph has been marked, instead of waiting
+     * to be read. Effects and resources are eager; lazy computations are not.
+     */
+    protected boolean isEager() {
+        return true;
+    }
+
+    /**
+     * Brings the value of this node up to date, re-running it if needed.
+     * Called on the sources of a node that is checking whether it must re-run.
+     */
+    protected void refresh() { }
+
+    /**
+     * Sets a label identifying this node in diagnostics, such as the profiler.
+     */
+    public final void setDebugLabel(String debugLabel) {
+        this.debugLabel = debugLabel;
+    }
+
+    /**
+     * Returns the label set with {@link #setDebugLabel(String)}, or {@code null}.
+     */
+    public final String getDebugLabel() {
+        return debugLabel;
+    }
+
+    /**
+     * Returns the profile of this node's computation, or {@code null} if no run was sampled yet.
+     */
+    public final ComputationProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Attaches a profile to this node, unless one is attached already.
+     *
+     * @return The profile attached to this node.
+     */
+    public final synchronized ComputationProfile attachProfile(ComputationProfile profile) {
+        if (this.profile == null) {
+            this.profile = profile;
+        }
+        return this.profile;
+    }
+
+    /**
+     * Returns how many times the computation of this node has run. Source nodes have no
+     * computation, so the default implementation returns zero.
+     */
+    public long getComputeCount() {
+        return 0;
+    }
+
+    /**
+     * Returns how long the last run of the computation of this node took, in nanoseconds, or
+     * zero if it was not measured. Runs are only measured while the metrics of the graph are
+     * enabled.
+     */
+    public long getLastComputeNanos() {
+        return 0;
+    }
+
+    /**
+     * Records that this node read the given source. Does nothing if the edge already exists.
+     *
+     * @param source The node that was read.
+     * @return {@code true} if a new edge was created.
+     */
+    public final boolean addSource(SignalNode source) {
+        for (int i = 0; i < sourceCount; i++) {
+            if (sources[i].source == source) {
+                return false;
+            }
+        }
+
+        if (sourceCount == sources.length) {
+            sources = Arrays.copyOf(sources, Math.max(4, sourceCount * 2));
+        }
+
+        Edge edge = new Edge(source, this);
+        sources[sourceCount++] = edge;
+        source.linkObserver(edge);
+        if (forwardsChanges) {
+            source.forwardChanges();
+        }
+
+        if (height <= source.height) {
+            height = source.height + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Records that the current run of this node read the given source.
+     * Called by the tracker for every read, so it does not allocate unless the source is new.
+     *
+     * @param source The node that was read.
+     * @throws IllegalStateException If the source belongs to another graph than this node.
+     */
+    public final void trackSource(SignalNode source) {
+        int epoch = runEpoch;
+        int cursor = trackedCount;
+
+        // Fast path: the same sources are read in the same order as in the previous run
+        if (cursor < sourceCount) {
+            Edge edge = sources[cursor];
+            if (edge.source == source) {
+                reuse(edge, epoch);
+                trackedCount = cursor + 1;
+                return;
+            }
+        }
+
+        // Repeated read of a source already tracked by this run. The source remembers the edge
+        // that last tracked it; if that edge carries this run's stamp, there is nothing to do.
+        Edge last = source.lastTracked;
+        if (last != null && last.epoch == epoch && last.get() == this) {
+            return;
+        }
+        for (int i = 0; i < cursor; i++) {
+            if (sources[i].source == source) {
+                return;
+            }
+        }
+
+        // A source from the previous run, read out of order: move its edge into the tracked slots
+        for (int i = cursor + 1; i < sourceCount; i++) {
+            Edge edge = sources[i];
+            if (edge.source == source) {
+                sources[i] = sources[cursor];
+                sources[cursor] = edge;
+                reuse(edge, epoch);
+                trackedCount = cursor + 1;
+                return;
+            }
+        }
+
+        // A new source. Edges never cross graphs, as the other graph would not notify this one.
+        if (source.tracker != tracker) {
+            throw new IllegalStateException("Cannot depend on " + source.getName() + ", it belongs to another graph");
+        }
+
+        // Keep the edge previously in this slot around, it may still be reused.
+        if (sourceCount == sources.length) {
+            sources = Arrays.copyOf(sources, Math.max(4, sourceCount * 2));
+        }
+        if (cursor < sourceCount) {
+            sources[sourceCount] = sources[cursor];
+        }
+        sourceCount++;
+
+        Edge edge = new Edge(source, this);
+        sources[cursor] = edge;
+        reuse(edge, epoch);
+        trackedCount = cursor + 1;
+        if (forwardsChanges) {
+            source.forwardChanges();
+        }
+    }
+
+    /**
+     * Makes every change upstream of this node reach it, for nodes that react to each change on
+     * their own terms, such as debounced effects. Normally marking stops at nodes that are stale
+     * already, as their observers were marked when they went stale. Sources of this node, and
+     * sources it reads later on, keep marking their observers while stale instead.
+     */
+    protected final void receiveEveryChange() {
+        forwardChanges();
+    }
+
+    private void forwardChanges() {
+        if (forwardsChanges) {
+            return;
+        }
+        forwardsChanges = true;
+
+        // May race with a run of this node; sources it reads meanwhile are forwarded by it
+        Edge[] edges = sources;
+        int count = Math.min(sourceCount, edges.length);
+        for (int i = 0; i < count; i++) {
+            Edge edge = edges[i];
+            if (edge != null) {
+                edge.source.forwardChanges();
+            }
+        }
+    }
+
+    private void reuse(Edge edge, int epoch) {
+        edge.epoch = epoch;
+        edge.source.lastTracked = edge;
+        if (!edge.linked) {
+            edge.source.linkObserver(edge);
+        }
+
+        if (height <= edge.source.height) {
+            height = edge.source.height + 1;
+        }
+    }
+
+    /**
+     * Removes every edge from this node to its sources.
+     */
+    public final void clearSources() {
+        for (int i = 0; i < sourceCount; i++) {
+            Edge edge = sources[i];
+            edge.source.unlinkObserver(edge);
+            sources[i] = null;
+        }
+        sourceCount = 0;
+        trackedCount = 0;
+    }
+
+    /**
+     * Returns a snapshot of the nodes read by this node's last computation.
+     */
+    public final List<SignalNode> getSources() {
+        // May run concurrently with the computation of this node, e.g. to take a snapshot of the
+        // graph, so the edges are read defensively
+        Edge[] edges = sources;
+        int count = Math.min(sourceCount, edges.length);
+        List<SignalNode> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Edge edge = edges[i];
+            if (edge != null) {
+                result.add(edge.source);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a snapshot of the live nodes that read this node.
+     * Edges whose observer has been garbage collected are dropped along the way.
+     */
+    public final List<SignalNode> getObservers() {
+        List<SignalNode> result = new ArrayList<>();
+        for (Edge edge = observers; edge != null; edge = edge.next) {
+            SignalNode observer = edge.get();
+            if (observer != null) {
+                result.add(observer);
+            } else {
+                unlinkObserver(edge);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the edges to observers that have been garbage collected, but not pruned yet.
+     * Unlike {@link #getObservers()}, this neither prunes them nor takes any lock.
+     */
+    public final int getStaleObserverCount() {
+        int stale = 0;
+        for (Edge edge = observers; edge != null; edge = edge.next) {
+            if (edge.refersTo(null)) {
+                stale++;
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Checks whether any live node reads this node.
+     */
+    public final boolean hasObservers() {
+        for (Edge edge = observers; edge != null; edge = edge.next) {
+            if (edge.get() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public final int getState() {
+        return state;
+    }
+
+    public final boolean isClean() {
+        return state == CLEAN;
+    }
+
+    public final long getVersion() {
+        return version;
+    }
+
+    public final int getHeight() {
+        return height;
+    }
+
+    /**
+     * Records that the value of this node changed, without marking the graph.
+     * Used by derived nodes whose observers were already marked while this node went stale.
+     */
+    protected final void incrementVersion() {
+        if (tracker.isConfined()) {
+            version++; // Only ever written by the thread the graph is confined to
+        } else {
+            VERSION.getAndAdd(this, 1L);
+        }
+    }
+
+    /**
+     * Marks this node dirty without touching the rest of the graph, for instance when its
+     * last run failed and must be retried on the next read.
+     */
+    protected final void markDirty() {
+        state = DIRTY;
+    }
+
+    /**
+     * Marks this node clean without running it, for nodes that react to every notification on
+     * their own terms, such as debounced resources.
+     */
+    protected final void markClean() {
+        state = CLEAN;
+    }
+
+    /**
+     * Called when this node starts a tracked run. From here on, any change to a source marks the
+     * node stale again, so changes that race with the run are not lost.
+     * <p>
+     * The edges of the previous run stay attached to their sources. Only the difference between
+     * the two runs is applied: new sources are attached as they are read, and sources that were
+     * not read again are detached by {@link #endRun()}.
+     */
+    public final void beginRun() {
+        state = CLEAN;
+        runEpoch++;
+        trackedCount = 0;
+    }
+
+    /**
+     * Called when this node finishes a tracked run. Detaches the edges that were not read again,
+     * and remembers the version of every source the run saw. If the node was marked while running,
+     * it may have seen a torn state and must run again.
+     */
+    public final void endRun() {
+        int tracked = trackedCount;
+        for (int i = tracked; i < sourceCount; i++) {
+            Edge edge = sources[i];
+            edge.source.unlinkObserver(edge);
+            sources[i] = null;
+        }
+        sourceCount = tracked;
+        recordSourceVersions();
+    }
+
+    /**
+     * Called when a node whose sources were declared up front starts a run. Its edges were wired
+     * once with {@link #addSource(SignalNode)} and do not change, so the run is not tracked.
+     */
+    public final void beginStaticRun() {
+        state = CLEAN;
+    }
+
+    /**
+     * Called when a node whose sources were declared up front finishes a run. Remembers the
+     * version of every source the run saw.
+     */
+    public final void endStaticRun() {
+        recordSourceVersions();
+    }
+
+    private void recordSourceVersions() {
+        for (int i = 0; i < sourceCount; i++) {
+            Edge edge = sources[i];
+            edge.version = edge.source.version;
+        }
+
+        if (state != CLEAN) {
+            state = DIRTY;
+        }
+    }
+
+    /**
+     * Decides whether this node must re-run. A node in {@link #CHECK} refreshes its sources in the
+     * order they were read, and stops at the first one whose version moved since the last run.
+     * Must only be called by the thread that is allowed to run this node.
+     *
+     * @return {@code true} if the node must re-run, {@code false} if it is clean.
+     */
+    public final boolean needsUpdate() {
+        int current = state;
+        if (current == CLEAN) {
+            return false;
+        }
+
+        if (current == CHECK) {
+            for (int i = 0; i < sourceCount; i++) {
+                Edge edge = sources[i];
+                edge.source.refresh();
+                if (edge.source.version != edge.version) {
+                    STATE.compareAndSet(this, CHECK, DIRTY);
+                    return true;
+                }
+            }
+
+            if (STATE.compareAndSet(this, CHECK, CLEAN)) {
+                return false;
+            }
+        }
+
+        // Dirty, or raised to dirty while the sources were being checked
+        return state != CLEAN;
+    }
+
+    /**
+     * Records that the value of this node changed, and marks everything downstream stale.
+     * Direct observers become {@link #DIRTY}, transitive ones {@link #CHECK}.
+     *
+     * @param eagerNodes Collects the nodes that became stale and must re-run on their own.
+     * @param stack      Scratch space for the traversal; left empty on return.
+     */
+    public final void propagateChange(List<SignalNode> eagerNodes, List<SignalNode> stack) {
+        incrementVersion();
+        markObservers(this, DIRTY, eagerNodes, stack);
+        drain(eagerNodes, stack);
+    }
+
+    /**
+     * Marks this node dirty without a change to any source, and everything downstream
+     * {@link #CHECK}. Observers only re-run if this node's value turns out to be different.
+     *
+     * @param eagerNodes Collects the nodes that became stale and must re-run on their own.
+     * @param stack      Scratch space for the traversal; left empty on return.
+     */
+    public final void invalidate(List<SignalNode> eagerNodes, List<SignalNode> stack) {
+        if (mark(this, DIRTY, eagerNodes)) {
+            stack.add(this);
+            drain(eagerNodes, stack);
+        }
+    }
+
+    private static void drain(List<SignalNode> eagerNodes, List<SignalNode> stack) {
+        while (!stack.isEmpty()) {
+            SignalNode node = stack.removeLast();
+            markObservers(node, CHECK, eagerNodes, stack);
+        }
+    }
+
+    private static void markObservers(SignalNode source, int level, List<SignalNode> eagerNodes, List<SignalNode> stack) {
+        for (Edge edge = source.observers; edge != null; edge = edge.next) {
+            SignalNode observer = edge.get();
+            if (observer == null) {
+                source.unlinkObserver(edge);
+            } else if (mark(observer, level, eagerNodes)) {
+                stack.add(observer);
+            }
+        }
+    }
+
+    /**
+     * Raises the state of a node to the given level.
+     *
+     * @return {@code true} if the node was clean, or forwards every change, so its observers must
+     *         be marked as well.
+     */
+    private static boolean mark(SignalNode node, int level, List<SignalNode> eagerNodes) {
+        if (node.tracker.isConfined()) {
+            // Nothing races with the thread the graph is confined to
+            int current = node.state;
+            if (current >= level) {
+                return node.forwardsChanges;
+            }
+            node.state = level;
+            if (current != CLEAN) {
+                return node.forwardsChanges;
+            }
+            if (node.isEager()) {
+                eagerNodes.add(node);
+            }
+            return true;
+        }
+
+        while (true) {
+            int current = node.state;
+            if (current >= level) {
+                return node.forwardsChanges;
+            }
+            if (STATE.compareAndSet(node, current, level)) {
+                if (current != CLEAN) {
+                    return node.forwardsChanges;
+                }
+                if (node.isEager()) {
+                    eagerNodes.add(node);
+                }
+                return true;
+            }
+        }
+    }
+
+    private void linkObserver(Edge edge) {
+        if (tracker.isConfined()) {
+            tracker.checkConfined();
+            attachObserver(edge);
+            return;
+        }
+        synchronized (this) {
+            attachObserver(edge);
+        }
+    }
+
+    private void unlinkObserver(Edge edge) {
+        if (tracker.isConfined()) {
+            tracker.checkConfined();
+            detachObserver(edge);
+            return;
+        }
+        synchronized (this) {
+            detachObserver(edge);
+        }
+    }
+
+    private void attachObserver(Edge edge) {
+        edge.linked = true;
+        edge.prev = null;
+        edge.next = observers;
+        if (observers != null) {
+            observers.prev = edge;
+        }
+        observers = edge;
+    }
+
+    private void detachObserver(Edge edge) {
+        edge.linked = false;
+        if (edge.prev != null) {
+            edge.prev.next = edge.next;
+        } else if (observers == edge) {
+            observers = edge.next;
+        } else {
+            return; // Already unlinked
+        }
+        if (edge.next != null) {
+            edge.next.prev = edge.prev;
+        }
+        // Keep edge.next intact, so a traversal currently standing on this edge can move on.
+        edge.prev = null;
+    }
+
+    /**
+     * A directed edge from a source to one of its observers.
+     * The edge belongs to both endpoints' edge lists, but refers to the observer weakly.
+     */
+    private static final class Edge extends WeakReference<SignalNode> {
+
+        private final SignalNode source;
+
+        private Edge prev;
+
+        private volatile Edge next;
+
+        /**
+         * The version of the source seen by the observer's last run.
+         */
+        private long version;
+
+        /**
+         * The run of the observer that last tracked this edge.
+         */
+        private int epoch;
+
+        /**
+         * Whether the edge is currently in the source's observer list.
+         * Written under the source's lock, read without it by the observer's computing thread.
+         */
+        private boolean linked;
+
+        Edge(SignalNode source, SignalNode observer) {
+            super(observer);
+            this.source = source;
+        }
+
+    }
+
 }
@@ -18,7 +18,8 @@ public final class SubscriptionNotifier<LISTENER_TYPE> {
     public SubscriptionNotifier() { }
 
     /**
-     * Adds a listener and returns a Disposable to manage its lifecycle.
+     * Adds a listener and returns a Disposable to manage its lifecycle. The subscription is owned
+     * by the current {@link Owner}, if any.
      *
      * @param listener The listener to add.
      * @return A Disposable to unsubscribe the listener.
@@ -27,6 +28,7 @@ public final class SubscriptionNotifier<LISTENER_TYPE> {
         Objects.requireNonNull(listener, "Listener cannot be null");
         ManagedSubscription<LISTENER_TYPE> subscription = new ManagedSubscription<>(listener, this);
         subscriptions.add(subscription);
+        subscription.owner = Owner.adopt(subscription);
         return subscription;
     }
 
@@ -89,6 +91,11 @@ public final class SubscriptionNotifier<LISTENER_TYPE> {
 
         private volatile boolean disposed = false;
 
+        /**
+         * The owner of the scope the subscription was made in, or {@code null}.
+         */
+        private volatile Owner owner;
+
         ManagedSubscription(L actualListener, SubscriptionNotifier<L> manager) {
             this.actualListener = actualListener;
             this.manager = manager;
@@ -119,6 +126,10 @@ public final class SubscriptionNotifier<LISTENER_TYPE> {
                 // This ensures that once disposed, it won't be notified further
                 // and allows the manager to clean up its reference.
                 manager.remove(this);
+                Owner current = owner;
+                if (current != null) {
+                    current.disown(this);
+                }
             }
         }
 
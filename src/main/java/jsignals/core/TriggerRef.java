@@ -1,6 +1,7 @@
 package jsignals.core;
 
 import jsignals.runtime.DependencyTracker;
+import jsignals.runtime.JSignalsRuntime;
 
 import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -9,13 +10,13 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * Represents a trigger in the reactive system.
  * This class can be extended to implement specific trigger behaviors.
  */
-public class TriggerRef implements TrackableRef {
+public class TriggerRef extends SignalNode implements TrackableRef {
 
     private final CopyOnWriteArrayList<TriggerSubscription> subscriptions;
 
     private final Object notificationLock = new Object();
 
-    private final DependencyTracker tracker = DependencyTracker.getInstance();
+    private final DependencyTracker tracker = getTracker();
 
     // TODO: Package-private for now, will integrate with DependencyTracker later
     volatile boolean isNotifying = false;
@@ -24,6 +25,14 @@ public class TriggerRef implements TrackableRef {
         this.subscriptions = new CopyOnWriteArrayList<>();
     }
 
+    /**
+     * Creates a trigger in the graph of the given runtime.
+     */
+    public TriggerRef(JSignalsRuntime runtime) {
+        super(runtime.getTracker());
+        this.subscriptions = new CopyOnWriteArrayList<>();
+    }
+
     public void track() {
         tracker.trackAccess(this);
     }
@@ -37,6 +46,7 @@ public class TriggerRef implements TrackableRef {
 
         TriggerSubscription subscription = new TriggerSubscription(listener, this);
         subscriptions.add(subscription);
+        subscription.owner = Owner.adopt(subscription);
 
         return subscription;
     }
@@ -96,6 +106,11 @@ public class TriggerRef implements TrackableRef {
 
         private volatile boolean disposed = false;
 
+        /**
+         * The owner of the scope the subscription was made in, or {@code null}.
+         */
+        private volatile Owner owner;
+
         TriggerSubscription(Runnable listener, TriggerRef ref) {
             this.listener = listener;
             this.ref = ref;
@@ -116,6 +131,10 @@ public class TriggerRef implements TrackableRef {
             if (!disposed) {
                 disposed = true;
                 ref.removeSubscription(this);
+                Owner current = owner;
+                if (current != null) {
+                    current.disown(this);
+                }
             }
         }
 
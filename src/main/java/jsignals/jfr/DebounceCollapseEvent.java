@@ -0,0 +1,25 @@
+package jsignals.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A pending debounced fetch of a resource that was replaced by a newer one.
+ */
+@Name("jsignals.DebounceCollapse")
+@Label("Debounce Collapse")
+@Category("JSignals")
+@Description("A pending debounced fetch replaced by a newer request")
+@Enabled(false)
+@StackTrace(false)
+public final class DebounceCollapseEvent extends Event {
+
+    @Label("Resource")
+    public String resource;
+
+}
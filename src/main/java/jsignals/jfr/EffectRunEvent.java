@@ -0,0 +1,23 @@
+package jsignals.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A run of an effect.
+ */
+@Name("jsignals.EffectRun")
+@Label("Effect Run")
+@Category("JSignals")
+@Enabled(false)
+@StackTrace(false)
+public final class EffectRunEvent extends Event {
+
+    @Label("Effect")
+    public String effect;
+
+}
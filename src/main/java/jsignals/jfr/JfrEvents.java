@@ -0,0 +1,35 @@
+package jsignals.jfr;
+
+/**
+ * Decides whether the Java Flight Recorder events of JSignals are worth creating.
+ * <p>
+ * All events are disabled by default, and can be enabled per event type in a recording, e.g. in
+ * JDK Mission Control or with a {@code .jfc} settings file. Loading an event class initializes
+ * parts of the recorder, so the library does not touch any event class until the recorder is
+ * running. Until then, and on runtimes without the {@code jdk.jfr} module, every event site
+ * costs a single static read.
+ */
+public final class JfrEvents {
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private JfrEvents() { }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder", false, JfrEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether the flight recorder is running, in which case the events should be created
+     * and asked whether they are enabled.
+     */
+    public static boolean isRecording() {
+        return AVAILABLE && jdk.jfr.FlightRecorder.isInitialized();
+    }
+
+}
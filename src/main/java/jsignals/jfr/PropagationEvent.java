@@ -0,0 +1,26 @@
+package jsignals.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A propagation of changes through the graph, from the first eager dependent notified to the last.
+ */
+@Name("jsignals.Propagation")
+@Label("Propagation")
+@Category("JSignals")
+@Description("Notification of the subscribers and eager dependents affected by changes")
+@Enabled(false)
+@StackTrace(false)
+public final class PropagationEvent extends Event {
+
+    @Label("Fan-Out")
+    @Description("Number of eager dependents notified")
+    public int fanOut;
+
+}
@@ -0,0 +1,29 @@
+package jsignals.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A tracked run of the computation of a computed value.
+ */
+@Name("jsignals.Recompute")
+@Label("Recompute")
+@Category("JSignals")
+@Description("A run of the computation of a computed value")
+@Enabled(false)
+@StackTrace(false)
+public final class RecomputeEvent extends Event {
+
+    @Label("Node")
+    public String node;
+
+    @Label("Changed")
+    @Description("Whether the computation produced a value different from the cached one")
+    public boolean changed;
+
+}
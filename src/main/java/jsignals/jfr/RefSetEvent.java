@@ -0,0 +1,29 @@
+package jsignals.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A write to a source that changed its value.
+ */
+@Name("jsignals.RefSet")
+@Label("Ref Set")
+@Category("JSignals")
+@Description("A write to a reactive source that changed its value")
+@Enabled(false)
+@StackTrace(false)
+public final class RefSetEvent extends Event {
+
+    @Label("Source")
+    public String source;
+
+    @Label("Batched")
+    @Description("Whether the notification was deferred until the end of a batch")
+    public boolean batched;
+
+}
@@ -0,0 +1,35 @@
+package jsignals.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A fetch of a resource, from the moment it started until it succeeded, failed or was cancelled.
+ */
+@Name("jsignals.ResourceFetch")
+@Label("Resource Fetch")
+@Category("JSignals")
+@Description("A fetch of a resource, from start to completion")
+@Enabled(false)
+@StackTrace(false)
+public final class ResourceFetchEvent extends Event {
+
+    public static final String SUCCESS = "success";
+
+    public static final String ERROR = "error";
+
+    public static final String CANCELLED = "cancelled";
+
+    @Label("Resource")
+    public String resource;
+
+    @Label("Outcome")
+    @Description("One of success, error or cancelled")
+    public String outcome;
+
+}
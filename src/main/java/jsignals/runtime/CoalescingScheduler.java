@@ -0,0 +1,114 @@
+package jsignals.runtime;
+
+import jsignals.util.JSignalsLogger;
+import org.slf4j.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the recomputations of eager values on a bounded number of drain workers.
+ * <p>
+ * Tasks go to a shared ready-queue. A worker is only started when fewer than the maximum are
+ * draining the queue, and each worker keeps running queued tasks until the queue is empty. A burst
+ * of writes therefore starts a handful of threads instead of one per recomputation. Nodes enqueue
+ * themselves at most once until a worker picks them up, so the queue holds each stale node once.
+ */
+public final class CoalescingScheduler implements Executor {
+
+    private static final Logger log = JSignalsLogger.getLogger(CoalescingScheduler.class);
+
+    private final Queue<Runnable> ready = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger workers = new AtomicInteger();
+
+    private final Executor workerExecutor;
+
+    private final int maxWorkers;
+
+    /**
+     * @param workerExecutor Starts the drain workers.
+     * @param maxWorkers     The maximum number of workers draining the queue at the same time.
+     */
+    public CoalescingScheduler(Executor workerExecutor, int maxWorkers) {
+        if (maxWorkers < 1) {
+            throw new IllegalArgumentException("At least one worker is required, got " + maxWorkers);
+        }
+        this.workerExecutor = workerExecutor;
+        this.maxWorkers = maxWorkers;
+    }
+
+    /**
+     * Queues a task, and starts a worker to run it unless enough are running already.
+     */
+    @Override
+    public void execute(Runnable task) {
+        ready.add(task);
+        if (tryAcquireWorker()) {
+            workerExecutor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Returns the number of tasks waiting for a worker.
+     */
+    public int getQueuedCount() {
+        return ready.size();
+    }
+
+    public int getActiveWorkers() {
+        return workers.get();
+    }
+
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    /**
+     * Drops the tasks waiting for a worker. Tasks that are running are left to complete.
+     *
+     * @return The number of tasks dropped.
+     */
+    public int cancelAll() {
+        int dropped = 0;
+        while (ready.poll() != null) {
+            dropped++;
+        }
+        return dropped;
+    }
+
+    private boolean tryAcquireWorker() {
+        int current;
+        do {
+            current = workers.get();
+            if (current >= maxWorkers) {
+                return false;
+            }
+        } while (!workers.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+            while ((task = ready.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Error running scheduled recomputation: {}", e.getMessage(), e);
+                }
+            }
+
+            workers.decrementAndGet();
+
+            // A task may have been queued after the queue was found empty, but before this worker
+            // was released, in which case no worker was started for it
+            if (ready.isEmpty() || !tryAcquireWorker()) {
+                return;
+            }
+        }
+    }
+
+}
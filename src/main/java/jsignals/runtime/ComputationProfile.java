@@ -0,0 +1,125 @@
+package jsignals.runtime;
+
+import jsignals.core.SignalNode;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * The accumulated cost of the sampled runs of one node's computation.
+ * <p>
+ * Created by the {@link ComputationProfiler} on the first sampled run of a node, and attached to
+ * the node. Durations are kept in a histogram with power-of-two buckets, from which percentiles
+ * are estimated by interpolating within a bucket.
+ */
+public final class ComputationProfile {
+
+    private static final int BUCKETS = 48;
+
+    /**
+     * The profiled node. Referenced weakly, so profiling does not keep nodes alive.
+     */
+    private final WeakReference<SignalNode> node;
+
+    private final String name;
+
+    private final String type;
+
+    private final int[] buckets = new int[BUCKETS];
+
+    private long count;
+
+    private long totalNanos;
+
+    private long maxNanos;
+
+    private long allocatedBytes;
+
+    /**
+     * Sampled runs whose allocations could be measured.
+     */
+    private long allocationSamples;
+
+    ComputationProfile(SignalNode node) {
+        this.node = new WeakReference<>(node);
+        this.name = node.getName();
+        this.type = node.getClass().getSimpleName();
+    }
+
+    /**
+     * Returns the profiled node, or {@code null} if it has been garbage collected.
+     */
+    public SignalNode getNode() {
+        return node.get();
+    }
+
+    /**
+     * @param allocated Bytes allocated by the run, or a negative value if unknown.
+     */
+    synchronized void record(long nanos, long allocated) {
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        buckets[bucketOf(nanos)]++;
+        if (allocated >= 0) {
+            allocatedBytes += allocated;
+            allocationSamples++;
+        }
+    }
+
+    synchronized void reset() {
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+        allocatedBytes = 0;
+        allocationSamples = 0;
+        Arrays.fill(buckets, 0);
+    }
+
+    /**
+     * Returns the statistics gathered so far.
+     */
+    public synchronized ComputationProfiler.Entry summarize() {
+        SignalNode current = node.get();
+        String label = current != null ? current.getDebugLabel() : null;
+        return new ComputationProfiler.Entry(
+                label != null ? label : name,
+                type,
+                count,
+                totalNanos,
+                count > 0 ? totalNanos / count : 0,
+                percentile(0.50),
+                percentile(0.99),
+                maxNanos,
+                allocationSamples > 0 ? allocatedBytes / allocationSamples : -1
+        );
+    }
+
+    private long percentile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (buckets[i] == 0) {
+                continue;
+            }
+            if (seen + buckets[i] >= rank) {
+                long low = i == 0 ? 0 : 1L << (i - 1);
+                long high = Math.min(1L << i, maxNanos + 1);
+                double fraction = (double) (rank - seen) / buckets[i];
+                return Math.min(maxNanos, low + (long) ((high - low) * fraction));
+            }
+            seen += buckets[i];
+        }
+        return maxNanos;
+    }
+
+    private static int bucketOf(long nanos) {
+        int bucket = nanos <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+}
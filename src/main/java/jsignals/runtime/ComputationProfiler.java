@@ -0,0 +1,190 @@
+package jsignals.runtime;
+
+import jsignals.core.SignalNode;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Profiles the computations of the nodes of a graph: computed values and effects.
+ * <p>
+ * Profiling is off by default. Once enabled with a sampling rate, that fraction of the runs is
+ * timed, and the bytes they allocate are measured where the JVM supports it. The statistics are
+ * accumulated per node in a {@link ComputationProfile}. {@link #topN(int)} returns the nodes that
+ * spent the most time computing; give nodes a {@linkplain SignalNode#setDebugLabel(String) debug
+ * label} to recognize them.
+ * <p>
+ * While disabled, profiling costs a single volatile read per run.
+ */
+public final class ComputationProfiler {
+
+    /**
+     * The statistics of one node.
+     *
+     * @param label          The debug label of the node, or its name if it has none.
+     * @param type           The simple class name of the node.
+     * @param count          Sampled runs.
+     * @param totalNanos     Total duration of the sampled runs.
+     * @param meanNanos      Mean duration of a run.
+     * @param p50Nanos       Estimated median duration of a run.
+     * @param p99Nanos       Estimated 99th percentile of the duration of a run.
+     * @param maxNanos       Longest run.
+     * @param allocatedBytes Mean bytes allocated by a run, or {@code -1} if unknown.
+     */
+    public record Entry(String label, String type, long count, long totalNanos, long meanNanos,
+                        long p50Nanos, long p99Nanos, long maxNanos, long allocatedBytes) { }
+
+    /**
+     * A run that was picked for sampling, as returned by {@link #begin()}.
+     */
+    public static final class Sample {
+
+        private final long startNanos;
+
+        private final long startBytes;
+
+        private Sample(long startNanos, long startBytes) {
+            this.startNanos = startNanos;
+            this.startBytes = startBytes;
+        }
+
+    }
+
+    /**
+     * Fraction of the runs to sample, between 0 (disabled) and 1 (every run).
+     */
+    private volatile double samplingRate = 0;
+
+    private final Queue<ComputationProfile> profiles = new ConcurrentLinkedQueue<>();
+
+    ComputationProfiler() { }
+
+    /**
+     * Starts profiling.
+     *
+     * @param samplingRate Fraction of the runs to sample, between 0 and 1. Sampling a small
+     *                     fraction keeps the overhead low enough for production.
+     */
+    public void enable(double samplingRate) {
+        if (!(samplingRate >= 0 && samplingRate <= 1)) {
+            throw new IllegalArgumentException("Sampling rate must be between 0 and 1, got " + samplingRate);
+        }
+        this.samplingRate = samplingRate;
+    }
+
+    /**
+     * Stops profiling. The statistics gathered so far are kept.
+     */
+    public void disable() {
+        samplingRate = 0;
+    }
+
+    public boolean isEnabled() {
+        return samplingRate > 0;
+    }
+
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+
+    /**
+     * Decides whether to sample the run that is about to start.
+     *
+     * @return The sample to pass to {@link #end(SignalNode, Sample)}, or {@code null} if the run is
+     * not sampled.
+     */
+    public Sample begin() {
+        double rate = samplingRate;
+        if (rate <= 0 || (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate)) {
+            return null;
+        }
+        return new Sample(System.nanoTime(), allocatedBytes());
+    }
+
+    /**
+     * Records a sampled run of the computation of a node.
+     *
+     * @param node   The node that ran.
+     * @param sample The sample returned by {@link #begin()}. Does nothing if {@code null}.
+     */
+    public void end(SignalNode node, Sample sample) {
+        if (sample == null) {
+            return;
+        }
+
+        long nanos = System.nanoTime() - sample.startNanos;
+        long bytes = sample.startBytes < 0 ? -1 : allocatedBytes();
+        if (bytes >= 0) {
+            bytes -= sample.startBytes;
+        }
+
+        ComputationProfile profile = node.getProfile();
+        if (profile == null) {
+            ComputationProfile created = new ComputationProfile(node);
+            profile = node.attachProfile(created);
+            if (profile == created) {
+                profiles.add(profile);
+            }
+        }
+        profile.record(nanos, bytes);
+    }
+
+    /**
+     * Returns the statistics of the nodes that spent the most time computing, most expensive
+     * first. Profiles of garbage collected nodes are dropped.
+     *
+     * @param k The maximum number of nodes to return.
+     */
+    public List<Entry> topN(int k) {
+        profiles.removeIf(profile -> profile.getNode() == null);
+
+        List<Entry> entries = new ArrayList<>(profiles.size());
+        for (ComputationProfile profile : profiles) {
+            entries.add(profile.summarize());
+        }
+        entries.sort(Comparator.comparingLong(Entry::totalNanos).reversed());
+        return List.copyOf(entries.subList(0, Math.min(k, entries.size())));
+    }
+
+    /**
+     * Clears the statistics of all nodes.
+     */
+    public void reset() {
+        profiles.removeIf(profile -> profile.getNode() == null);
+        for (ComputationProfile profile : profiles) {
+            profile.reset();
+        }
+    }
+
+    private static long allocatedBytes() {
+        // Unsupported for virtual threads on some JVMs, in which case it is -1
+        com.sun.management.ThreadMXBean allocations = Allocations.BEAN;
+        return allocations != null ? allocations.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Looks up the thread management bean on the first sampled run, as the management services
+     * are expensive to initialize.
+     */
+    private static final class Allocations {
+
+        static final com.sun.management.ThreadMXBean BEAN = lookup();
+
+        private static com.sun.management.ThreadMXBean lookup() {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean allocations
+                    && allocations.isThreadAllocatedMemorySupported()) {
+                return allocations;
+            }
+            return null;
+        }
+
+    }
+
+}
@@ -1,216 +1,444 @@
 package jsignals.runtime;
 
+import jsignals.core.SignalNode;
+import jsignals.jfr.JfrEvents;
+import jsignals.jfr.PropagationEvent;
 import jsignals.util.JSignalsLogger;
 import org.slf4j.Logger;
 
-import java.lang.ref.WeakReference;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static jsignals.util.JSignalsLogger.DEBUG;
+import static jsignals.util.JSignalsLogger.TRACE;
 
 /**
  * Tracks dependencies between reactive values and their dependents.
+ * <p>
+ * The edges of the dependency graph live on the {@link SignalNode}s themselves.
+ * The tracker only knows which computation is currently running on each thread,
+ * and drives propagation: when a value changes, the graph is marked stale first,
+ * then the eager nodes that went stale are re-run in height order.
+ * <p>
+ * Every {@link JSignalsRuntime} owns its own tracker, so separate runtimes have separate graphs
+ * that share no state. Nodes created without a runtime belong to the default graph of
+ * {@link #getInstance()}.
  */
 public class DependencyTracker {
 
     private static final DependencyTracker INSTANCE = new DependencyTracker();
 
-    private final ThreadLocal<Deque<ComputationContext>> contextStack = ThreadLocal.withInitial(ArrayDeque::new);
+    /**
+     * The graph of the innermost computation running on each thread, across all graphs.
+     */
+    private static final ThreadLocal<ActiveGraph> ACTIVE_GRAPH = ThreadLocal.withInitial(ActiveGraph::new);
+
+    private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(ThreadState::new);
+
+    /**
+     * Incremented every time a change is propagated through this graph. A computation that sees
+     * the same value before and after it ran did not race with any write.
+     */
+    private final AtomicLong writeClock = new AtomicLong();
+
+    private final JSignalsMetrics metrics = new JSignalsMetrics();
 
-    // Thread-local to track the current computation being executed
-//    private final ThreadLocal<ComputationContext> currentContext = new ThreadLocal<>();
+    private final ComputationProfiler profiler = new ComputationProfiler();
 
-    // Maps dependencies to their dependents
-    private final ConcurrentHashMap<Object, Set<WeakReference<Dependent>>> dependentsMap =
-            new ConcurrentHashMap<>();
+    private final NodeRegistry nodes = new NodeRegistry();
 
-    // Maps dependents to their current dependencies (for cleanup)
-    private final ConcurrentHashMap<Dependent, Set<Object>> dependentToDepsMap =
-            new ConcurrentHashMap<>();
+    /**
+     * Runs the recomputations of eager values of this graph, or {@code null} for the default graph,
+     * whose recomputations go to the runtime of {@link jsignals.JSignals}.
+     */
+    private volatile Executor recomputeScheduler;
+
+    /**
+     * The only thread allowed to write to this graph and run its computations, or {@code null} if
+     * any thread may. Set for the graph of a {@link Partition}.
+     */
+    private volatile Thread confinedThread;
 
     private static final Logger log = JSignalsLogger.getLogger(DependencyTracker.class);
 
-    private DependencyTracker() { }
+    DependencyTracker() { }
 
+    /**
+     * Returns the tracker of the default graph, shared by all nodes created without a runtime.
+     */
     public static DependencyTracker getInstance() {
         return INSTANCE;
     }
 
-    public void registerDependency(Dependent dependent, Object dependency) {
-        dependentsMap.computeIfAbsent(dependency, k -> ConcurrentHashMap.newKeySet())
-                .add(new WeakReference<>(dependent));
-        dependentToDepsMap.computeIfAbsent(dependent, k -> new HashSet<>())
-                .add(dependency);
+    /**
+     * Returns the metrics of this graph, shared by all of its nodes.
+     */
+    public JSignalsMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the scheduler running the recomputations of eager values of this graph, or
+     * {@code null} for the default graph.
+     */
+    public Executor getRecomputeScheduler() {
+        return recomputeScheduler;
+    }
+
+    void setRecomputeScheduler(Executor recomputeScheduler) {
+        this.recomputeScheduler = recomputeScheduler;
+    }
+
+    /**
+     * Confines this graph to the given thread. From now on, writes, runs and changes to the edges
+     * of the graph fail on other threads, and skip the synchronization that guards them against
+     * concurrent use.
+     */
+    void confineTo(Thread thread) {
+        this.confinedThread = thread;
+    }
+
+    /**
+     * Checks whether this graph is confined to a single thread.
+     */
+    public boolean isConfined() {
+        return confinedThread != null;
+    }
+
+    /**
+     * Checks that the current thread may write to this graph and run its computations.
+     *
+     * @throws IllegalStateException If the graph is confined to another thread.
+     */
+    public void checkConfined() {
+        Thread owner = confinedThread;
+        if (owner != null && owner != Thread.currentThread()) {
+            throw new IllegalStateException("The graph is confined to " + owner.getName()
+                    + ", it cannot be used from " + Thread.currentThread().getName());
+        }
+    }
+
+    /**
+     * Returns the profiler of the computations of this graph.
+     */
+    public ComputationProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Registers a node of this graph, so that it shows up in snapshots of the graph.
+     * The node is referenced weakly. Called by every node when it is created.
+     */
+    public void registerNode(SignalNode node) {
+        nodes.register(node);
+    }
+
+    /**
+     * Takes a snapshot of the structure of this graph. Does not block reads, writes or
+     * propagation, so a graph that changes meanwhile may be captured partially updated.
+     */
+    public GraphSnapshot snapshot() {
+        return GraphSnapshot.capture(nodes.liveNodes(), nodes.staleCount());
+    }
+
+    public void registerDependency(SignalNode dependent, SignalNode dependency) {
+        dependent.addSource(dependency);
     }
 
     /**
      * Starts tracking dependencies for a computation.
      */
-    public void startTracking(Dependent dependent) {
-        // Clean up old dependencies first
-        cleanupDependent(dependent);
+    public void startTracking(SignalNode dependent) {
+        checkConfined();
+        // The edges of the previous run stay in place; only the ones that change are touched
+        dependent.beginRun();
+        threadState.get().push(dependent, this);
+    }
 
-        // Push a new context onto the stack
-        ComputationContext context = new ComputationContext(dependent);
-        contextStack.get().push(context);
+    /**
+     * Starts a computation whose reads are not tracked, neither by itself nor by the computation
+     * it runs in. Must be paired with {@link #stopTracking()}.
+     */
+    public void startUntracked() {
+        threadState.get().push(null, null);
     }
 
     /**
      * Stops tracking dependencies for the current computation.
+     * The dependencies that were accessed are now recorded as edges of the dependent.
      */
-    public Set<Object> stopTracking() {
-        Deque<ComputationContext> stack = contextStack.get();
-        if (stack.isEmpty()) {
+    public void stopTracking() {
+        ThreadState current = threadState.get();
+        if (current.depth == 0) {
             log.error("No computation context to stop tracking for.");
-            return Collections.emptySet();
+            return;
         }
 
-        ComputationContext context = stack.pop();
-        if (context == null) {
-            log.error("Null computation context found when stopping tracking.");
-            return Collections.emptySet();
+        SignalNode dependent = current.pop();
+        if (dependent != null) {
+            dependent.endRun();
         }
-
-        Set<Object> newDeps = context.getDependencies();
-        Dependent dependent = context.getDependent();
-
-        // Update the dependent's dependency set
-        dependentToDepsMap.put(dependent, newDeps);
-
-        return newDeps;
     }
 
     /**
      * Records that the current computation accessed a dependency.
+     * This is the hot path of every tracked read, and does not allocate in steady state.
+     *
+     * @throws IllegalStateException If a computation of another graph is running on this thread,
+     *                               as it could never be notified of changes to the dependency.
      */
-    public void trackAccess(Object dependency) {
-        Deque<ComputationContext> stack = contextStack.get();
-        if (stack.isEmpty()) {
-            log.warn("No computation context found when tracking access to dependency: {}", dependency);
+    public void trackAccess(SignalNode dependency) {
+        ThreadState current = threadState.get();
+        DependencyTracker active = current.active.tracker;
+        if (active != this) {
+            if (active != null) {
+                throw new IllegalStateException("Cannot read " + dependency.getName()
+                        + " from a computation of another graph; primitives of different runtimes must not read each other");
+            }
+            // A plain or untracked read outside of any computation, nothing to track
+            if (TRACE) {
+                log.trace("No computation context found when tracking access to dependency: {}", dependency);
+            }
             return;
         }
 
-        ComputationContext context = stack.peek();
-        log.trace("Tracking access to dependency {}. Current context: {}", dependency, context);
+        // Register the current computation as an observer of the accessed node. As the innermost
+        // computation on this thread belongs to this graph, it is on top of this graph's stack.
+        current.frames[current.depth - 1].trackSource(dependency);
+    }
 
-        if (context == null) {
-            log.warn("Null computation context found when tracking access to dependency: {}", dependency);
-            return;
+    /**
+     * Notifies all dependents that a dependency has changed.
+     * <p>
+     * The whole downstream graph is marked stale before any dependent runs. Eager dependents are
+     * then re-run once each, lowest first, and only if one of their sources actually changed.
+     * If a propagation is already being flushed on this thread, or a batch is open, the newly stale
+     * dependents join it.
+     */
+    public void notifyDependents(SignalNode dependency) {
+        ThreadState current = threadState.get();
+        writeClock.incrementAndGet();
+        dependency.propagateChange(current.eagerNodes, current.stack);
+        if (TRACE) {
+            log.trace("Marked dependents of {}. Pending eager dependents: {}", dependency, current.eagerNodes.size());
         }
+        flush(current);
+    }
 
-        context.addDependency(dependency);
+    /**
+     * Marks a node dirty even though none of its sources changed, and its dependents as
+     * possibly stale. The dependents only re-run if the node's value turns out to be different.
+     */
+    public void invalidate(SignalNode node) {
+        ThreadState current = threadState.get();
+        writeClock.incrementAndGet();
+        node.invalidate(current.eagerNodes, current.stack);
+        flush(current);
+    }
 
-        // Register this computation as a dependent of the accessed value
-        Set<WeakReference<Dependent>> dependents = dependentsMap.computeIfAbsent(
-                dependency,
-                k -> ConcurrentHashMap.newKeySet()
-        );
+    /**
+     * Returns the number of changes propagated through this graph so far.
+     */
+    public long getWriteClock() {
+        return writeClock.get();
+    }
 
-        // Add the current dependent
-        Dependent currentDependent = context.getDependent();
+    /**
+     * Opens a batch on the current thread. Until the outermost batch is closed, changes are still
+     * applied and marked in the graph, but subscribers and eager dependents are not notified.
+     * Batches nest; every call must be paired with {@link #endBatch()}.
+     */
+    public void startBatch() {
+        threadState.get().batchDepth++;
+    }
 
-        // Check if already registered
-        for (WeakReference<Dependent> ref : dependents) {
-            if (ref.get() == currentDependent) {
-                return; // Already registered.
-            }
+    /**
+     * Closes a batch on the current thread. Closing the outermost batch notifies every affected
+     * subscriber and dependent once.
+     */
+    public void endBatch() {
+        ThreadState current = threadState.get();
+        if (current.batchDepth == 0) {
+            log.error("No batch to end on this thread.");
+            throw new IllegalStateException("No batch in progress on this thread.");
+        }
+
+        if (--current.batchDepth == 0) {
+            flush(current);
         }
-        dependents.add(new WeakReference<>(currentDependent));
     }
 
     /**
-     * Notifies all dependents that a dependency has changed.
+     * Checks whether a batch is open on the current thread.
+     */
+    public boolean isBatching() {
+        return threadState.get().batchDepth > 0;
+    }
+
+    /**
+     * Defers a notification of the direct subscribers of a source until the outermost batch on
+     * this thread ends. Only the first notification deferred for a given source is kept, so
+     * subscribers are notified once however many times the source changed.
      */
-    public void notifyDependents(Object dependency) {
-        Set<WeakReference<Dependent>> dependents = dependentsMap.get(dependency);
-
-        var dependentList = dependents != null ? dependents.stream()
-                .map(WeakReference::get)
-                .filter(Objects::nonNull)
-                .map(Dependent::getName)
-                .toList() : Collections.emptyList();
-        log.trace("Notifying dependents for dependency {}. Current dependents: {}", dependency, dependentList);
-
-        if (dependents != null) {
-            // Create a copy to avoid concurrent modification
-            List<Dependent> activeDependents = new ArrayList<>();
-
-            // Collect active dependents and clean up stale references
-            Iterator<WeakReference<Dependent>> it = dependents.iterator();
-            while (it.hasNext()) {
-                WeakReference<Dependent> ref = it.next();
-                Dependent dependent = ref.get();
-                if (dependent != null) {
-                    activeDependents.add(dependent);
-                } else {
+    public void deferNotification(SignalNode source, Runnable notificationAction) {
+        threadState.get().deferredNotifications.putIfAbsent(source, notificationAction);
+    }
+
+    private void flush(ThreadState current) {
+        if (current.flushing || current.batchDepth > 0) {
+            return;
+        }
+        if (current.deferredNotifications.isEmpty() && current.eagerNodes.isEmpty()) {
+            return;
+        }
+
+        boolean timed = metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0L;
+        int notified = 0;
+        PropagationEvent event = JfrEvents.isRecording() ? beginPropagationEvent() : null;
+
+        current.flushing = true;
+        try {
+            while (!current.deferredNotifications.isEmpty() || !current.eagerNodes.isEmpty()) {
+                // Direct subscribers first, as they would have been notified at write time
+                // outside of a batch
+                while (!current.deferredNotifications.isEmpty()) {
+                    Iterator<Runnable> it = current.deferredNotifications.values().iterator();
+                    Runnable notificationAction = it.next();
                     it.remove();
+                    try {
+                        notificationAction.run();
+                    } catch (Exception e) {
+                        log.error("Error running deferred notification: {}", e.getMessage(), e);
+                    }
                 }
-            }
 
-            // Notify all active dependents
-            for (Dependent dependent : activeDependents) {
-                try {
-                    log.debug("Notifying dependent {}", dependent.getName());
-                    dependent.onDependencyChanged();
-                } catch (Exception e) {
-                    log.error("Error notifying dependent {}: {}", dependent.getId(), e.getMessage(), e);
+                List<SignalNode> round = current.swap();
+                round.sort(BY_HEIGHT);
+                notified += round.size();
+
+                for (SignalNode dependent : round) {
+                    try {
+                        if (DEBUG) {
+                            log.debug("Notifying dependent {}", dependent.getName());
+                        }
+                        dependent.onDependencyChanged();
+                    } catch (Exception e) {
+                        log.error("Error notifying dependent {}: {}", dependent.getId(), e.getMessage(), e);
+                    }
                 }
+                round.clear();
             }
+        } finally {
+            current.eagerNodes.clear();
+            current.spare.clear();
+            current.deferredNotifications.clear();
+            current.flushing = false;
+        }
+
+        if (timed) {
+            metrics.recordPropagation(notified, System.nanoTime() - start);
+        }
+        if (event != null) {
+            event.fanOut = notified;
+            event.commit();
         }
     }
 
-    /**
-     * Removes a dependent from all its dependencies.
-     */
-    void cleanupDependent(Dependent dependent) {
-        Set<Object> oldDeps = dependentToDepsMap.remove(dependent);
-        if (oldDeps != null) {
-            for (Object dep : oldDeps) {
-                Set<WeakReference<Dependent>> dependents = dependentsMap.get(dep);
-                if (dependents != null) {
-                    dependents.removeIf(ref -> {
-                        Dependent d = ref.get();
-                        return d == null || d == dependent;
-                    });
-                }
-            }
+    private static PropagationEvent beginPropagationEvent() {
+        PropagationEvent event = new PropagationEvent();
+        if (!event.isEnabled()) {
+            return null;
         }
+        event.begin();
+        return event;
     }
 
+    private static final Comparator<SignalNode> BY_HEIGHT = Comparator.comparingInt(SignalNode::getHeight);
+
     /**
-     * Context for tracking dependencies during a computation.
+     * Per-thread state: the stack of running computations, and the propagation currently being
+     * batched or flushed. Everything is reused, so tracking reads and propagating changes do not
+     * allocate in steady state.
      */
-    private static class ComputationContext {
+    private static final class ThreadState {
 
-        private final Dependent dependent;
+        private SignalNode[] frames = new SignalNode[8];
 
-        private final Set<Object> dependencies = new HashSet<>();
+        /**
+         * The graph that was active when each frame was pushed, restored when it is popped.
+         */
+        private DependencyTracker[] outerGraphs = new DependencyTracker[8];
 
-        ComputationContext(Dependent dependent) {
-            this.dependent = dependent;
-        }
+        private int depth;
 
-        void addDependency(Object dependency) {
-            dependencies.add(dependency);
-        }
+        /**
+         * The active graph of this thread, shared by the states of all graphs.
+         */
+        private final ActiveGraph active = ACTIVE_GRAPH.get();
+
+        private List<SignalNode> eagerNodes = new ArrayList<>();
+
+        private List<SignalNode> spare = new ArrayList<>();
 
-        Set<Object> getDependencies() {
-            return new HashSet<>(dependencies);
+        private final List<SignalNode> stack = new ArrayList<>();
+
+        private final Map<SignalNode, Runnable> deferredNotifications = new LinkedHashMap<>();
+
+        private boolean flushing;
+
+        private int batchDepth;
+
+        /**
+         * @param graph The graph whose reads are tracked from now on, or {@code null} if they are
+         *              not tracked.
+         */
+        void push(SignalNode dependent, DependencyTracker graph) {
+            if (depth == frames.length) {
+                frames = Arrays.copyOf(frames, depth * 2);
+                outerGraphs = Arrays.copyOf(outerGraphs, depth * 2);
+            }
+            outerGraphs[depth] = active.tracker;
+            frames[depth++] = dependent;
+            active.tracker = graph;
         }
 
-        Dependent getDependent() {
+        SignalNode pop() {
+            SignalNode dependent = frames[--depth];
+            frames[depth] = null;
+            active.tracker = outerGraphs[depth];
+            outerGraphs[depth] = null;
             return dependent;
         }
 
-        @Override
-        public String toString() {
-            return "ComputationContext" + "@" + Integer.toHexString(System.identityHashCode(this)) + "{" +
-                    "dependent=" + dependent.getName() +
-                    ", dependencies=" + dependencies +
-                    '}';
+        /**
+         * Hands out the nodes collected so far, and starts collecting into an empty list.
+         */
+        List<SignalNode> swap() {
+            List<SignalNode> round = eagerNodes;
+            eagerNodes = spare;
+            spare = round;
+            return round;
         }
 
     }
 
+    /**
+     * The graph of the innermost computation running on a thread.
+     */
+    private static final class ActiveGraph {
+
+        private DependencyTracker tracker;
+
+    }
+
     /**
      * Interface for objects that depend on reactive values.
      */
@@ -0,0 +1,22 @@
+package jsignals.runtime;
+
+/**
+ * Where effects re-run after their dependencies change.
+ */
+public enum EffectDispatch {
+
+    /**
+     * On the writing thread, once the write or the outermost batch has marked the graph. The write
+     * returns after the affected effects have run.
+     */
+    INLINE,
+
+    /**
+     * On a dedicated effect thread. Writes only queue the affected effects, and return right away.
+     * An effect that is queued already is not queued again, so a burst of writes re-runs it once.
+     * Queued effects never run concurrently with each other; {@link EffectRunner#flush()} runs the
+     * pending ones on the calling thread.
+     */
+    DEDICATED_THREAD
+
+}
@@ -0,0 +1,105 @@
+package jsignals.runtime;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * When an effect re-runs after its dependencies change.
+ * <p>
+ * Effects always run for the first time right away, on the thread that creates them, to register
+ * their dependencies. The options only affect the re-runs. Except for {@link #sync()}, re-runs are
+ * deferred, and a burst of changes re-runs the effect once, with the latest values. Deferred re-runs
+ * of an effect never overlap. In a {@link Partition}, deferred re-runs run on its worker, like
+ * everything else that touches its graph.
+ *
+ * @param mode     How re-runs are scheduled.
+ * @param interval The delay, minimum spacing or frame duration of the mode, or {@link Duration#ZERO}.
+ */
+public record EffectOptions(Mode mode, Duration interval) {
+
+    private static final EffectOptions SYNC = new EffectOptions(Mode.SYNC, Duration.ZERO);
+
+    private static final EffectOptions ASYNC = new EffectOptions(Mode.ASYNC, Duration.ZERO);
+
+    public enum Mode {
+
+        /**
+         * Re-runs right away, as dispatched by the runner: on the writing thread, or on the effect
+         * thread.
+         */
+        SYNC,
+
+        /**
+         * Re-runs on a virtual thread of the runtime executor, or on the worker of a
+         * {@link Partition}.
+         */
+        ASYNC,
+
+        /**
+         * Re-runs once the dependencies stopped changing for the interval.
+         */
+        DEBOUNCED,
+
+        /**
+         * Re-runs right away, but at most once per interval; later changes are applied at the end of
+         * the interval.
+         */
+        THROTTLED,
+
+        /**
+         * Re-runs at the next frame boundary, together with all the effects of the runner that use
+         * the same frame duration and changed during the frame.
+         */
+        FRAME_COALESCED
+
+    }
+
+    public EffectOptions {
+        Objects.requireNonNull(mode, "Mode cannot be null");
+        Objects.requireNonNull(interval, "Interval cannot be null");
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException("Interval cannot be negative, got " + interval);
+        }
+        if (interval.isZero() && (mode == Mode.THROTTLED || mode == Mode.FRAME_COALESCED)) {
+            throw new IllegalArgumentException(mode + " effects require a positive interval");
+        }
+    }
+
+    /**
+     * Re-runs right away. This is the default.
+     */
+    public static EffectOptions sync() {
+        return SYNC;
+    }
+
+    /**
+     * Re-runs on a virtual thread, so writes never wait for the effect.
+     */
+    public static EffectOptions async() {
+        return ASYNC;
+    }
+
+    /**
+     * Re-runs once the dependencies stopped changing for the given delay.
+     */
+    public static EffectOptions debounced(Duration delay) {
+        return new EffectOptions(Mode.DEBOUNCED, delay);
+    }
+
+    /**
+     * Re-runs at most once per given interval.
+     */
+    public static EffectOptions throttled(Duration interval) {
+        return new EffectOptions(Mode.THROTTLED, interval);
+    }
+
+    /**
+     * Re-runs at fixed frame boundaries, e.g. every 16 ms for UI updates at 60 frames per second.
+     * All effects with the same frame duration that changed during a frame run once, one after the
+     * other, at the end of the frame.
+     */
+    public static EffectOptions frameCoalesced(Duration frame) {
+        return new EffectOptions(Mode.FRAME_COALESCED, frame);
+    }
+
+}
@@ -1,46 +1,368 @@
 package jsignals.runtime;
 
+import jsignals.core.Dependencies;
 import jsignals.core.Disposable;
-import jsignals.runtime.DependencyTracker.Dependent;
+import jsignals.core.Owner;
+import jsignals.core.SignalNode;
+import jsignals.jfr.EffectRunEvent;
+import jsignals.jfr.JfrEvents;
+import jsignals.util.JSignalsLogger;
+import org.slf4j.Logger;
 
 import java.util.Objects;
-import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Manages reactive effects (side effects that re-run when dependencies change).
+ * <p>
+ * Where effects re-run is decided by the {@link EffectDispatch} of the runner, and when by the
+ * {@link EffectOptions} of each effect. Effects always run for the first time on the thread that
+ * creates them.
  */
-public class EffectRunner {
+public class EffectRunner implements AutoCloseable {
 
-    private final DependencyTracker tracker = DependencyTracker.getInstance();
+    private static final Logger log = JSignalsLogger.getLogger(EffectRunner.class);
+
+    private final DependencyTracker tracker;
+
+    private final EffectDispatch dispatch;
+
+    /**
+     * Runs and delays the effects that are not re-run synchronously.
+     */
+    private final JSignalsExecutor executor;
+
+    /**
+     * The worker of the partition the graph is confined to, which runs the deferred re-runs
+     * instead of the executor, or {@code null}.
+     */
+    private final Executor worker;
+
+    /**
+     * The frames of frame-coalesced effects, by frame duration in nanoseconds.
+     */
+    private final ConcurrentHashMap<Long, Frame> frames = new ConcurrentHashMap<>();
+
+    /**
+     * The origin of the frame boundaries.
+     */
+    private final long frameOriginNanos = System.nanoTime();
+
+    /**
+     * Effects waiting to re-run, when they are dispatched to the effect thread.
+     */
+    private final BlockingQueue<EffectHandle> pending = new LinkedBlockingQueue<>();
+
+    /**
+     * Effects queued for the effect thread that have not completed yet, including the one running.
+     */
+    private final AtomicInteger unfinished = new AtomicInteger();
+
+    /**
+     * Held while queued effects run, so they never run concurrently with each other.
+     */
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    private final Thread effectThread;
+
+    /**
+     * Creates an effect runner for the default graph.
+     */
+    public EffectRunner() {
+        this(DependencyTracker.getInstance(), EffectDispatch.INLINE, JSignalsExecutor.getInstance());
+    }
+
+    EffectRunner(DependencyTracker tracker, EffectDispatch dispatch, JSignalsExecutor executor) {
+        this(tracker, dispatch, executor, null);
+    }
+
+    EffectRunner(DependencyTracker tracker, EffectDispatch dispatch, JSignalsExecutor executor, Executor worker) {
+        this.tracker = tracker;
+        this.executor = executor;
+        this.worker = worker;
+        this.dispatch = Objects.requireNonNull(dispatch, "Effect dispatch cannot be null");
+        if (dispatch == EffectDispatch.DEDICATED_THREAD) {
+            this.effectThread = Thread.ofPlatform()
+                    .name("jsignals-effects")
+                    .daemon()
+                    .start(this::drainLoop);
+        } else {
+            this.effectThread = null;
+        }
+    }
+
+    public EffectDispatch getDispatch() {
+        return dispatch;
+    }
+
+    /**
+     * Returns the number of effects waiting for the effect thread.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the number of queued effects that were taken off the queue, and are running now.
+     * At most one, as queued effects never run concurrently with each other.
+     */
+    public int getRunningCount() {
+        return Math.max(0, unfinished.get() - pending.size());
+    }
+
+    /**
+     * Re-runs the effects that are waiting for the effect thread, on the calling thread, and
+     * returns once none are left. Waits for the effect thread if it is running effects. Effects
+     * that are queued meanwhile, e.g. by writes of the effects themselves, are run as well.
+     * Does nothing for effects that run inline, as they never wait.
+     */
+    public void flush() {
+        drainLock.lock();
+        try {
+            drainPending();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #flush()}, but gives up if the effect thread is still running effects after the
+     * timeout.
+     *
+     * @return {@code true} if no effects are left waiting, {@code false} if the timeout elapsed.
+     * @throws InterruptedException If interrupted while waiting for the effect thread.
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!drainLock.tryLock(timeout, unit)) {
+            return false;
+        }
+        try {
+            drainPending();
+        } finally {
+            drainLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Stops the effect thread. Effects still waiting for it do not run.
+     */
+    @Override
+    public void close() {
+        if (effectThread != null) {
+            effectThread.interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                EffectHandle handle = pending.take();
+                drainLock.lock();
+                try {
+                    runQueued(handle);
+                    drainPending();
+                } finally {
+                    drainLock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            // The runner was closed
+        }
+    }
+
+    private void drainPending() {
+        EffectHandle handle;
+        while ((handle = pending.poll()) != null) {
+            runQueued(handle);
+        }
+    }
+
+    /**
+     * Runs a deferred re-run on the worker of the partition, if the graph is confined to one, or
+     * on the executor.
+     */
+    private void runLater(Runnable task) {
+        if (worker != null) {
+            worker.execute(task);
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Like {@link #runLater(Runnable)}, once the delay elapsed.
+     */
+    private ScheduledFuture<?> runLater(Runnable task, long delayNanos) {
+        // The timer of the executor hands the task over to the worker once it is due
+        Runnable due = worker != null ? () -> worker.execute(task) : task;
+        return executor.schedule(due, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void runQueued(EffectHandle handle) {
+        try {
+            handle.runDeferred();
+        } finally {
+            unfinished.decrementAndGet();
+        }
+    }
 
     /**
      * Runs an effect that will automatically re-run when its dependencies change.
      */
     public Disposable runEffect(Runnable effect) {
+        return runEffect(effect, EffectOptions.sync());
+    }
+
+    /**
+     * Runs an effect that will automatically re-run when its dependencies change, as scheduled by
+     * the given options.
+     */
+    public Disposable runEffect(Runnable effect, EffectOptions options) {
+        return runEffect(null, effect, options);
+    }
+
+    /**
+     * Runs an effect that re-runs when one of the given sources changes, as scheduled by the given
+     * options. Its runs are not tracked, so other values it reads never make it re-run.
+     *
+     * @param dependencies The sources of the effect, declared up front, or {@code null} to track
+     *                     them while the effect runs.
+     */
+    public Disposable runEffect(Dependencies dependencies, Runnable effect, EffectOptions options) {
         Objects.requireNonNull(effect, "Effect cannot be null");
+        Objects.requireNonNull(options, "Effect options cannot be null");
 
-        EffectHandle handle = new EffectHandle(effect);
+        Owner parent = Owner.current();
+        EffectHandle handle = new EffectHandle(effect, options, dependencies, parent, tracker);
+        if (parent != null) {
+            parent.own(handle);
+        }
 
-        // Run the effect immediately
-        handle.run();
+        // Run the effect immediately. The handle starts in the running state, so changes made
+        // meanwhile collapse into a re-run by this thread.
+        handle.runClaimed(true);
 
         return handle;
     }
 
+    /**
+     * The frame of the frame-coalesced effects with the same frame duration. Effects that change
+     * during a frame are collected, and run one after the other at the next frame boundary. No task
+     * is scheduled while no effect changes.
+     */
+    private final class Frame {
+
+        private final long frameNanos;
+
+        private final Queue<EffectHandle> dirty = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        Frame(long frameNanos) {
+            this.frameNanos = frameNanos;
+        }
+
+        void add(EffectHandle handle) {
+            dirty.add(handle);
+            if (scheduled.compareAndSet(false, true)) {
+                long elapsed = System.nanoTime() - frameOriginNanos;
+                runLater(this::drain, frameNanos - Math.floorMod(elapsed, frameNanos));
+            }
+        }
+
+        private void drain() {
+            // Cleared first, so an effect changing from now on schedules the next frame
+            scheduled.set(false);
+            EffectHandle handle;
+            while ((handle = dirty.poll()) != null) {
+                handle.runDeferred();
+            }
+        }
+
+    }
+
     /**
      * Internal class representing an active effect.
      */
-    private class EffectHandle implements Disposable, Dependent {
+    private class EffectHandle extends SignalNode implements Disposable {
+
+        private static final int IDLE = 0;
+
+        private static final int RUNNING = 1;
+
+        private static final int PENDING = 2;
 
         private final Runnable effect;
 
+        private final EffectOptions options;
+
+        /**
+         * Whether the sources of the effect were declared up front, so its runs are not tracked.
+         */
+        private final boolean staticSources;
+
+        /**
+         * Owns what the effect creates, which is disposed before it runs again.
+         */
+        private final Owner owner = new Owner();
+
+        /**
+         * The owner of the scope the effect was created in, or {@code null}.
+         */
+        private final Owner parent;
+
         private final AtomicBoolean disposed = new AtomicBoolean(false);
 
-        private volatile Set<Object> currentDependencies = Set.of();
+        /**
+         * Whether a deferred re-run of this effect is pending.
+         */
+        private final AtomicBoolean queued = new AtomicBoolean(false);
+
+        /**
+         * {@link #IDLE}, {@link #RUNNING}, or {@link #PENDING} if it changed while running. Only the
+         * thread that moved it from idle to running runs the effect, so the effect never runs
+         * concurrently with itself.
+         */
+        private final AtomicInteger runState = new AtomicInteger(RUNNING);
 
-        EffectHandle(Runnable effect) {
+        /**
+         * The pending re-run of a debounced effect.
+         */
+        private final AtomicReference<ScheduledFuture<?>> timer = new AtomicReference<>();
+
+        private volatile long lastStartNanos;
+
+        private final AtomicLong runCount = new AtomicLong();
+
+        private volatile long lastRunNanos;
+
+        EffectHandle(Runnable effect, EffectOptions options, Dependencies dependencies, Owner parent, DependencyTracker tracker) {
+            super(tracker);
             this.effect = effect;
+            this.options = options;
+            this.parent = parent;
+            this.staticSources = dependencies != null;
+            if (dependencies != null) {
+                dependencies.wire(this);
+            }
+            if (options.mode() == EffectOptions.Mode.DEBOUNCED) {
+                // Every change resets the timer, even behind computed values that went stale
+                // with the first change and are not read before the effect runs
+                receiveEveryChange();
+            }
         }
 
         void run() {
@@ -48,41 +370,224 @@ public class EffectRunner {
                 return;
             }
 
-            // Start tracking dependencies
-            tracker.startTracking(this);
+            lastStartNanos = System.nanoTime();
+
+            JSignalsMetrics metrics = tracker.getMetrics();
+            metrics.recordEffectRun();
+            runCount.incrementAndGet();
+            long start = metrics.isEnabled() ? System.nanoTime() : 0L;
+            ComputationProfiler profiler = tracker.getProfiler();
+            ComputationProfiler.Sample sample = profiler.begin();
+            EffectRunEvent event = JfrEvents.isRecording() ? beginEvent() : null;
+
+            // Dispose what the previous run created, and run its cleanup hooks, untracked
+            owner.disposeOwned();
+
+            // Start tracking dependencies, unless they were declared up front
+            if (staticSources) {
+                beginStaticRun();
+                tracker.startUntracked();
+            } else {
+                tracker.startTracking(this);
+            }
 
             try {
-                // Run the effect
-                effect.run();
+                // Run the effect as the owner of what it creates
+                owner.run(effect);
+                if (start != 0L) {
+                    lastRunNanos = System.nanoTime() - start;
+                }
+                profiler.end(this, sample);
+                if (event != null) {
+                    event.commit();
+                }
 
-                // Get the dependencies that were accessed
-                currentDependencies = tracker.stopTracking();
+                // The dependencies that were accessed are now recorded as edges of this node
+                stopTracking();
             } catch (Exception e) {
                 // Make sure we stop tracking even on error
-                tracker.stopTracking();
+                stopTracking();
                 throw new RuntimeException("Error in effect", e);
             }
         }
 
+        private void stopTracking() {
+            tracker.stopTracking();
+            if (staticSources) {
+                endStaticRun();
+            }
+        }
+
+        private EffectRunEvent beginEvent() {
+            EffectRunEvent event = new EffectRunEvent();
+            if (!event.isEnabled()) {
+                return null;
+            }
+            event.effect = getName();
+            event.begin();
+            return event;
+        }
+
+        /**
+         * Re-runs the effect if the values it read changed since its last run. Logs errors, as
+         * there is no writer to report them to.
+         */
+        void runDeferred() {
+            // Cleared first, so a change made while the effect runs schedules it again
+            queued.set(false);
+            if (!claimRun()) {
+                return;
+            }
+            try {
+                runClaimed(false);
+            } catch (Exception e) {
+                log.error("Error running effect {}: {}", getName(), e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Re-runs a debounced effect once its dependencies stopped changing. The changes were
+         * accepted as they arrived, so the effect is marked stale again to run.
+         */
+        private void runDebounced() {
+            markDirty();
+            runDeferred();
+        }
+
+        /**
+         * Claims the right to run the effect. If it is running on another thread, asks that thread
+         * to run it once more instead.
+         *
+         * @return {@code true} if the current thread must run the effect.
+         */
+        private boolean claimRun() {
+            while (true) {
+                int state = runState.get();
+                if (state == IDLE) {
+                    if (runState.compareAndSet(IDLE, RUNNING)) {
+                        return true;
+                    }
+                } else if (state == PENDING || runState.compareAndSet(RUNNING, PENDING)) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Runs the effect, by the thread that claimed the run, and re-runs it as long as it changed
+         * while running. However many changes arrive meanwhile, they cause a single re-run.
+         *
+         * @param force Whether to run the effect even if the values it read did not change.
+         */
+        private void runClaimed(boolean force) {
+            RuntimeException failure = null;
+            do {
+                try {
+                    if (!disposed.get() && (force || needsUpdate())) {
+                        run();
+                    }
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+                force = false;
+                // Only this thread leaves the running and pending states
+            } while (!runState.compareAndSet(RUNNING, IDLE) && runState.compareAndSet(PENDING, RUNNING));
+
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
         @Override
         public void onDependencyChanged() {
-            // Re-run the effect when dependencies change
-            if (!disposed.get()) {
-                run();
+            if (disposed.get()) {
+                return;
+            }
+
+            long intervalNanos = options.interval().toNanos();
+            switch (options.mode()) {
+                case SYNC -> runSync();
+                case ASYNC -> {
+                    if (queued.compareAndSet(false, true)) {
+                        runLater(this::runDeferred);
+                    }
+                }
+                case DEBOUNCED -> {
+                    // Accept the change right away, so that further changes keep reaching this
+                    // handle and resetting the timer
+                    markClean();
+                    // The pending run is postponed in place, unless it has started already
+                    ScheduledFuture<?> pendingRun = timer.get();
+                    if (pendingRun == null || !executor.postpone(pendingRun, intervalNanos, TimeUnit.NANOSECONDS)) {
+                        ScheduledFuture<?> previous = timer.getAndSet(
+                                runLater(this::runDebounced, intervalNanos));
+                        if (previous != null) {
+                            previous.cancel(false);
+                        }
+                    }
+                }
+                case THROTTLED -> {
+                    if (queued.compareAndSet(false, true)) {
+                        long wait = lastStartNanos + intervalNanos - System.nanoTime();
+                        if (wait <= 0) {
+                            runLater(this::runDeferred);
+                        } else {
+                            runLater(this::runDeferred, wait);
+                        }
+                    }
+                }
+                case FRAME_COALESCED -> {
+                    if (queued.compareAndSet(false, true)) {
+                        frames.computeIfAbsent(intervalNanos, Frame::new).add(this);
+                    }
+                }
+            }
+        }
+
+        private void runSync() {
+            if (dispatch == EffectDispatch.DEDICATED_THREAD) {
+                // Whether the values it read actually changed is checked when the effect thread
+                // gets to it, as they may change again in the meantime
+                if (queued.compareAndSet(false, true)) {
+                    // Counted before it is queued, so the effect thread cannot finish it first
+                    unfinished.incrementAndGet();
+                    pending.add(this);
+                }
+                return;
+            }
+
+            // Re-run the effect when dependencies change, unless all the values it read
+            // turn out to be the same as in the last run
+            if (claimRun()) {
+                runClaimed(false);
             }
         }
 
+        @Override
+        public long getComputeCount() {
+            return runCount.get();
+        }
+
+        @Override
+        public long getLastComputeNanos() {
+            return lastRunNanos;
+        }
+
         @Override
         public void dispose() {
             if (disposed.compareAndSet(false, true)) {
-                // Clean up our registrations
-                for (Object dep : currentDependencies) {
-                    if (dep instanceof Disposable disposable) {
-                        disposable.dispose();
-                    } else if (dep instanceof Dependent dependent) {
-                        dependent.onDependencyChanged();
-                    }
+                ScheduledFuture<?> pendingRun = timer.getAndSet(null);
+                if (pendingRun != null) {
+                    pendingRun.cancel(false);
+                }
+                owner.dispose();
+                if (parent != null) {
+                    parent.disown(this);
                 }
+                // Clean up our registrations, so the dependencies no longer reference this effect
+                clearSources();
             }
         }
 
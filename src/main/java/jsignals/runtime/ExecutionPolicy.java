@@ -0,0 +1,80 @@
+package jsignals.runtime;
+
+import java.util.Objects;
+
+/**
+ * How many tasks a {@link JSignalsExecutor} runs at the same time, and what happens to the tasks
+ * beyond that.
+ * <p>
+ * Every task runs on a virtual thread of its own. Without a limit, as by default, a thread is
+ * started for every task right away. With a limit, tasks wait in a bounded queue until a running
+ * task completes, and the {@link Overflow} policy decides what happens once the queue is full.
+ *
+ * @param maxConcurrency The maximum number of tasks running at the same time, or
+ *                       {@link Integer#MAX_VALUE} for no limit.
+ * @param queueCapacity  The maximum number of tasks waiting to run.
+ * @param overflow       What happens to a task that arrives while the queue is full.
+ */
+public record ExecutionPolicy(int maxConcurrency, int queueCapacity, Overflow overflow) {
+
+    private static final ExecutionPolicy UNBOUNDED = new ExecutionPolicy(Integer.MAX_VALUE, Integer.MAX_VALUE, Overflow.REJECT);
+
+    /**
+     * What happens to a task that arrives while the queue is full.
+     */
+    public enum Overflow {
+
+        /**
+         * The task is rejected with a {@link java.util.concurrent.RejectedExecutionException}.
+         */
+        REJECT,
+
+        /**
+         * The task runs on the submitting thread, which slows down the producer.
+         */
+        CALLER_RUNS,
+
+        /**
+         * The task that waited the longest is dropped to make room. Futures of dropped tasks
+         * complete with a {@link java.util.concurrent.RejectedExecutionException}.
+         */
+        DROP_OLDEST
+
+    }
+
+    public ExecutionPolicy {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be at least 1, got " + maxConcurrency);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1, got " + queueCapacity);
+        }
+        Objects.requireNonNull(overflow, "Overflow policy cannot be null");
+    }
+
+    /**
+     * Starts a thread for every task right away. This is the default.
+     */
+    public static ExecutionPolicy unbounded() {
+        return UNBOUNDED;
+    }
+
+    /**
+     * Runs at most the given number of tasks at the same time.
+     *
+     * @param maxConcurrency The maximum number of tasks running at the same time.
+     * @param queueCapacity  The maximum number of tasks waiting to run.
+     * @param overflow       What happens to a task that arrives while the queue is full.
+     */
+    public static ExecutionPolicy bounded(int maxConcurrency, int queueCapacity, Overflow overflow) {
+        return new ExecutionPolicy(maxConcurrency, queueCapacity, overflow);
+    }
+
+    /**
+     * Checks whether the number of running tasks is limited.
+     */
+    public boolean isBounded() {
+        return maxConcurrency != Integer.MAX_VALUE;
+    }
+
+}
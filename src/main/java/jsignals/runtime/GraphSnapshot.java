@@ -0,0 +1,317 @@
+package jsignals.runtime;
+
+import jsignals.core.SignalNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable picture of the structure of a reactive graph: its nodes, the edges between them,
+ * and statistics to find hot spots and unexpectedly large fan-outs.
+ * <p>
+ * Snapshots are taken without locking the graph, see {@link DependencyTracker#snapshot()}. They
+ * can be exported to Graphviz with {@link #toDot()}, or to JSON with {@link #toJson()}.
+ */
+public final class GraphSnapshot {
+
+    /**
+     * A node of the graph.
+     *
+     * @param index            Position of the node in {@link #nodes()}, used by the edges.
+     * @param name             The name of the node.
+     * @param type             The simple class name of the node.
+     * @param state            One of {@code CLEAN}, {@code CHECK} or {@code DIRTY}.
+     * @param height           Longest path from a root source to the node.
+     * @param version          How many times the value of the node changed.
+     * @param fanIn            Number of sources read by the node.
+     * @param fanOut           Number of live nodes reading the node.
+     * @param staleObservers   Edges to observers that were garbage collected but not pruned yet.
+     * @param computeCount     Runs of the computation of the node.
+     * @param lastComputeNanos Duration of the last run, or zero if it was not measured.
+     */
+    public record Node(int index, String name, String type, String state, int height, long version,
+                       int fanIn, int fanOut, int staleObservers, long computeCount, long lastComputeNanos) { }
+
+    /**
+     * An edge from a node to one of the nodes that read it.
+     */
+    public record Edge(int source, int observer) { }
+
+    private final List<Node> nodes;
+
+    private final List<Edge> edges;
+
+    private final int staleNodeReferences;
+
+    private GraphSnapshot(List<Node> nodes, List<Edge> edges, int staleNodeReferences) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.edges = Collections.unmodifiableList(edges);
+        this.staleNodeReferences = staleNodeReferences;
+    }
+
+    /**
+     * Captures the given nodes and the edges between them. Sources that are not in the list,
+     * e.g. because they belong to another graph, are captured as well.
+     *
+     * @param liveNodes           The nodes of the graph.
+     * @param staleNodeReferences References to nodes of the graph that were garbage collected.
+     */
+    static GraphSnapshot capture(List<SignalNode> liveNodes, int staleNodeReferences) {
+        Map<SignalNode, Integer> indices = new IdentityHashMap<>();
+        List<SignalNode> order = new ArrayList<>(liveNodes.size());
+        for (SignalNode node : liveNodes) {
+            indexOf(node, indices, order);
+        }
+
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < order.size(); i++) {
+            for (SignalNode source : order.get(i).getSources()) {
+                edges.add(new Edge(indexOf(source, indices, order), i));
+            }
+        }
+
+        int[] fanIn = new int[order.size()];
+        int[] fanOut = new int[order.size()];
+        for (Edge edge : edges) {
+            fanOut[edge.source()]++;
+            fanIn[edge.observer()]++;
+        }
+
+        List<Node> nodes = new ArrayList<>(order.size());
+        for (int i = 0; i < order.size(); i++) {
+            SignalNode node = order.get(i);
+            nodes.add(new Node(i, nameOf(node), node.getClass().getSimpleName(), stateOf(node.getState()),
+                    node.getHeight(), node.getVersion(), fanIn[i], fanOut[i], node.getStaleObserverCount(),
+                    node.getComputeCount(), node.getLastComputeNanos()));
+        }
+
+        return new GraphSnapshot(nodes, edges, staleNodeReferences);
+    }
+
+    private static int indexOf(SignalNode node, Map<SignalNode, Integer> indices, List<SignalNode> order) {
+        Integer index = indices.get(node);
+        if (index == null) {
+            index = order.size();
+            indices.put(node, index);
+            order.add(node);
+        }
+        return index;
+    }
+
+    private static String nameOf(SignalNode node) {
+        try {
+            return node.getName();
+        } catch (RuntimeException e) {
+            // A node that is still being constructed may not be able to name itself yet
+            return node.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(node));
+        }
+    }
+
+    private static String stateOf(int state) {
+        return switch (state) {
+            case SignalNode.CLEAN -> "CLEAN";
+            case SignalNode.CHECK -> "CHECK";
+            default -> "DIRTY";
+        };
+    }
+
+    public List<Node> nodes() {
+        return nodes;
+    }
+
+    public List<Edge> edges() {
+        return edges;
+    }
+
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    public int edgeCount() {
+        return edges.size();
+    }
+
+    /**
+     * Returns the number of nodes of each type, sorted by type.
+     */
+    public Map<String, Integer> countsByType() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Node node : nodes) {
+            counts.merge(node.type(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    public int maxFanIn() {
+        int max = 0;
+        for (Node node : nodes) {
+            max = Math.max(max, node.fanIn());
+        }
+        return max;
+    }
+
+    public int maxFanOut() {
+        int max = 0;
+        for (Node node : nodes) {
+            max = Math.max(max, node.fanOut());
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of nodes on the longest path through the graph.
+     */
+    public int depth() {
+        int depth = 0;
+        for (Node node : nodes) {
+            depth = Math.max(depth, node.height() + 1);
+        }
+        return nodes.isEmpty() ? 0 : depth;
+    }
+
+    /**
+     * Returns the nodes that neither read nor are read by any other node.
+     */
+    public List<Node> orphans() {
+        List<Node> orphans = new ArrayList<>();
+        for (Node node : nodes) {
+            if (node.fanIn() == 0 && node.fanOut() == 0) {
+                orphans.add(node);
+            }
+        }
+        return orphans;
+    }
+
+    /**
+     * Returns the number of weak references to garbage collected nodes that have not been
+     * cleaned up yet, both in the observer lists of nodes and in the registry of the graph.
+     */
+    public int staleReferences() {
+        int stale = staleNodeReferences;
+        for (Node node : nodes) {
+            stale += node.staleObservers();
+        }
+        return stale;
+    }
+
+    /**
+     * Returns the nodes that ran their computation the most, most frequent first.
+     *
+     * @param limit The maximum number of nodes to return.
+     */
+    public List<Node> hottest(int limit) {
+        List<Node> sorted = new ArrayList<>(nodes);
+        sorted.sort((a, b) -> Long.compare(b.computeCount(), a.computeCount()));
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    /**
+     * Exports the graph in the Graphviz DOT language. Edges point from a source to the nodes
+     * that read it. Stale nodes are dashed.
+     */
+    public String toDot() {
+        StringBuilder dot = new StringBuilder("digraph jsignals {\n  rankdir=LR;\n  node [shape=box];\n");
+        for (Node node : nodes) {
+            dot.append("  n").append(node.index())
+                    .append(" [label=\"").append(escape(node.name()))
+                    .append("\\nruns=").append(node.computeCount())
+                    .append(" fan-out=").append(node.fanOut()).append('"');
+            if (!node.state().equals("CLEAN")) {
+                dot.append(", style=dashed");
+            }
+            dot.append("];\n");
+        }
+        for (Edge edge : edges) {
+            dot.append("  n").append(edge.source()).append(" -> n").append(edge.observer()).append(";\n");
+        }
+        return dot.append("}\n").toString();
+    }
+
+    /**
+     * Exports the graph and its summary statistics as a JSON object.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"nodeCount\":").append(nodeCount())
+                .append(",\"edgeCount\":").append(edgeCount())
+                .append(",\"maxFanIn\":").append(maxFanIn())
+                .append(",\"maxFanOut\":").append(maxFanOut())
+                .append(",\"depth\":").append(depth())
+                .append(",\"orphans\":").append(orphans().size())
+                .append(",\"staleReferences\":").append(staleReferences())
+                .append(",\"countsByType\":{");
+        boolean first = true;
+        for (Map.Entry<String, Integer> entry : countsByType().entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append('"').append(escape(entry.getKey())).append("\":").append(entry.getValue());
+        }
+        json.append("},\"nodes\":[");
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"index\":").append(node.index())
+                    .append(",\"name\":\"").append(escape(node.name()))
+                    .append("\",\"type\":\"").append(escape(node.type()))
+                    .append("\",\"state\":\"").append(node.state())
+                    .append("\",\"height\":").append(node.height())
+                    .append(",\"version\":").append(node.version())
+                    .append(",\"fanIn\":").append(node.fanIn())
+                    .append(",\"fanOut\":").append(node.fanOut())
+                    .append(",\"staleObservers\":").append(node.staleObservers())
+                    .append(",\"computeCount\":").append(node.computeCount())
+                    .append(",\"lastComputeNanos\":").append(node.lastComputeNanos())
+                    .append('}');
+        }
+        json.append("],\"edges\":[");
+        for (int i = 0; i < edges.size(); i++) {
+            Edge edge = edges.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"source\":").append(edge.source())
+                    .append(",\"observer\":").append(edge.observer()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Escapes a string for use inside double quotes, in both DOT and JSON.
+     */
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "GraphSnapshot{nodes=" + nodeCount() + ", edges=" + edgeCount() + ", maxFanIn=" + maxFanIn() +
+                ", maxFanOut=" + maxFanOut() + ", depth=" + depth() + ", staleReferences=" + staleReferences() + "}";
+    }
+
+}
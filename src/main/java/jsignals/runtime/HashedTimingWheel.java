@@ -0,0 +1,616 @@
+package jsignals.runtime;
+
+import jsignals.util.JSignalsLogger;
+import org.slf4j.Logger;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs delayed tasks on a hashed timing wheel.
+ * <p>
+ * Time is divided into ticks, and the wheel into a fixed ring of buckets, one per tick. A task is
+ * linked into the bucket of the tick it is due in, along with the number of full turns of the
+ * wheel still to wait. Scheduling and cancelling are O(1), unlike the O(log n) heap of a
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor}, which matters when thousands of
+ * debounced resources reschedule on every keystroke. Cancelled tasks are unlinked from their bucket
+ * right away rather than lingering until their deadline.
+ * <p>
+ * A single timer thread advances the wheel, and owns the buckets; other threads hand it tasks and
+ * cancellations through lock-free stacks that are threaded through the tasks themselves, so
+ * scheduling a task allocates nothing but the task. A pending task can be {@linkplain #postpone
+ * postponed} in place, which is how a debounce timer is reset without allocating or queueing
+ * anything: the timer thread moves it to its new bucket once it reaches the old one.
+ * <p>
+ * Tasks fire at the first tick at or after their deadline, so they run at most one tick late, and
+ * never early. The thread is started with the first task, and parks until the next bucket holding a
+ * task rather than waking on every tick, or until a task arrives while none is pending. Due tasks
+ * should be short, as they run on the timer thread: {@link JSignalsExecutor#schedule} only hands
+ * them over to the executor.
+ */
+final class HashedTimingWheel implements AutoCloseable {
+
+    private static final Logger log = JSignalsLogger.getLogger(HashedTimingWheel.class);
+
+    private final long tickNanos;
+
+    private final int mask;
+
+    /**
+     * Sentinel heads of the bucket lists. Only accessed by the timer thread.
+     */
+    private final Timeout[] buckets;
+
+    /**
+     * The last task scheduled, linked to the ones before it through {@link Timeout#nextAdded}.
+     */
+    private final AtomicReference<Timeout> additions = new AtomicReference<>();
+
+    /**
+     * The last task cancelled by another thread, linked to the ones before it through
+     * {@link Timeout#nextCancelled}.
+     */
+    private final AtomicReference<Timeout> cancellations = new AtomicReference<>();
+
+    private final String threadName;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile Thread worker;
+
+    private volatile boolean closed;
+
+    /**
+     * Whether the timer thread is parked beyond the current tick, so a task added meanwhile must
+     * wake it up.
+     */
+    private volatile boolean idle;
+
+    /**
+     * Incremented by {@link #cancelAll()}. Tasks scheduled before are not run.
+     */
+    private final AtomicInteger epoch = new AtomicInteger();
+
+    private volatile boolean cancelAllRequested;
+
+    /**
+     * Tasks linked into buckets. Only accessed by the timer thread.
+     */
+    private int linked;
+
+    private long startNanos;
+
+    private long tick;
+
+    /**
+     * @param tick       The duration of a tick, which is the precision of the wheel.
+     * @param unit       The unit of the tick duration.
+     * @param wheelSize  The number of buckets, rounded up to a power of two.
+     * @param threadName The name of the timer thread.
+     */
+    HashedTimingWheel(long tick, TimeUnit unit, int wheelSize, String threadName) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive, got " + tick);
+        }
+        if (wheelSize < 1 || wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("Wheel size must be between 1 and 2^30, got " + wheelSize);
+        }
+        int size = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+
+        this.tickNanos = unit.toNanos(tick);
+        this.mask = size - 1;
+        this.buckets = new Timeout[size];
+        for (int i = 0; i < size; i++) {
+            Timeout head = new Timeout(this, null, 0, 0);
+            head.prev = head;
+            head.next = head;
+            buckets[i] = head;
+        }
+        this.threadName = threadName;
+    }
+
+    /**
+     * Runs a task on the timer thread after a delay.
+     *
+     * @return A future that can cancel the task, and completes once it ran.
+     * @throws RejectedExecutionException If the wheel has been closed.
+     */
+    ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        if (closed) {
+            throw new RejectedExecutionException("Timing wheel has been closed");
+        }
+        ensureStarted();
+
+        Timeout timeout = new Timeout(this, task, System.nanoTime() + Math.max(0, unit.toNanos(delay)), epoch.get());
+        Timeout top;
+        do {
+            top = additions.get();
+            timeout.nextAdded = top;
+        } while (!additions.compareAndSet(top, timeout));
+        wakeUp();
+        return timeout;
+    }
+
+    /**
+     * Moves the deadline of a pending task of this wheel to the given delay from now. The task is
+     * reused as it is, so nothing is allocated or handed to the timer thread.
+     *
+     * @return {@code true} if the task was postponed, or {@code false} if it was not scheduled by
+     * this wheel, has started, completed or been cancelled already, or would have to run earlier
+     * than it is due, in which case it must be scheduled again.
+     */
+    boolean postpone(ScheduledFuture<?> future, long delay, TimeUnit unit) {
+        if (!(future instanceof Timeout timeout) || timeout.wheel != this || closed) {
+            return false;
+        }
+        return timeout.postpone(System.nanoTime() + Math.max(0, unit.toNanos(delay)), epoch.get());
+    }
+
+    /**
+     * Cancels all pending tasks. Their futures are cancelled by the timer thread within a tick; tasks
+     * that are due in the meantime are not run.
+     */
+    void cancelAll() {
+        epoch.incrementAndGet();
+        cancelAllRequested = true;
+        wakeUp();
+    }
+
+    /**
+     * Returns the number of buckets of the wheel.
+     */
+    int getWheelSize() {
+        return buckets.length;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        cancelAll();
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void ensureStarted() {
+        if (!started.get() && started.compareAndSet(false, true)) {
+            // Published before it starts, so a task scheduled while it parks can always wake it up
+            Thread thread = Thread.ofPlatform().name(threadName).daemon().unstarted(this::run);
+            worker = thread;
+            thread.start();
+        }
+    }
+
+    private void wakeUp() {
+        Thread thread = worker;
+        if (idle && thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        startNanos = System.nanoTime();
+        tick = 0;
+
+        while (!closed) {
+            if (cancelAllRequested) {
+                cancelAllRequested = false;
+                if (linked > 0) {
+                    cancelStale();
+                }
+            }
+            processCancellations();
+            transferAdditions();
+
+            // Ticks that passed are caught up on one by one, without parking
+            if (tick <= currentTick()) {
+                expire(buckets[(int) (tick & mask)]);
+                tick++;
+            } else {
+                awaitNextTask();
+            }
+        }
+
+        cancelLinked();
+        Timeout timeout = additions.getAndSet(null);
+        while (timeout != null) {
+            timeout.cancel(false);
+            timeout = timeout.nextAdded;
+        }
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    /**
+     * Parks until the tick of the next bucket holding a task, or until a task arrives while none is
+     * pending.
+     */
+    private void awaitNextTask() {
+        long next = nextOccupiedTick();
+        idle = true;
+        // Re-checked after publishing the idle flag, so a task added meanwhile is not missed
+        if (additions.get() == null && !cancelAllRequested && !closed) {
+            if (next < 0) {
+                LockSupport.park(this);
+            } else {
+                long remaining = startNanos + next * tickNanos - System.nanoTime();
+                if (remaining > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+            }
+        }
+        idle = false;
+
+        if (linked == 0) {
+            // Nothing is linked, so the ticks that passed while parked can be skipped
+            tick = Math.max(tick, currentTick());
+        }
+    }
+
+    /**
+     * Finds the first tick from the current one whose bucket holds a task, within a turn of the
+     * wheel.
+     *
+     * @return The tick, or -1 if no task is linked.
+     */
+    private long nextOccupiedTick() {
+        if (linked == 0) {
+            return -1;
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            Timeout head = buckets[(int) ((tick + i) & mask)];
+            if (head.next != head) {
+                return tick + i;
+            }
+        }
+        return -1;
+    }
+
+    private void processCancellations() {
+        Timeout timeout = cancellations.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextCancelled;
+            timeout.nextCancelled = null;
+            timeout.unlink();
+            timeout = next;
+        }
+    }
+
+    private void transferAdditions() {
+        Timeout top = additions.getAndSet(null);
+        if (top == null) {
+            return;
+        }
+
+        // Reversed, so tasks due in the same tick run in the order they were scheduled
+        Timeout first = null;
+        while (top != null) {
+            Timeout next = top.nextAdded;
+            top.nextAdded = first;
+            first = top;
+            top = next;
+        }
+
+        int current = epoch.get();
+        Timeout timeout = first;
+        while (timeout != null) {
+            Timeout next = timeout.nextAdded;
+            timeout.nextAdded = null;
+            if (timeout.epoch != current) {
+                timeout.cancel(false);
+            } else if (!timeout.isDone()) {
+                link(timeout, timeout.deadline);
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Links a task into the bucket of the tick its deadline falls in, or of the current tick if it
+     * is due already.
+     */
+    private void link(Timeout timeout, long deadline) {
+        long due = Math.max(Math.ceilDiv(deadline - startNanos, tickNanos), tick);
+        timeout.remainingRounds = (due - tick) / buckets.length;
+        timeout.link(buckets[(int) (due & mask)]);
+    }
+
+    private void expire(Timeout head) {
+        int current = epoch.get();
+        // Tasks moved to a later turn of this same bucket are linked after the last one
+        Timeout last = head.prev;
+        Timeout timeout = head.next;
+        while (timeout != head) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                timeout.unlink();
+                if (timeout.epoch != current) {
+                    timeout.cancel(false);
+                } else if (!timeout.runIfDue() && !timeout.isDone()) {
+                    // Postponed, or being postponed, in which case its bucket is chosen next tick
+                    long nextTickNanos = startNanos + (tick + 1) * tickNanos;
+                    link(timeout, timeout.state == Timeout.POSTPONING
+                            ? nextTickNanos
+                            : Math.max(timeout.deadline, nextTickNanos));
+                }
+            }
+            if (timeout == last) {
+                break;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Cancels the linked tasks that were scheduled before {@link #cancelAll()}.
+     */
+    private void cancelStale() {
+        int current = epoch.get();
+        for (Timeout head : buckets) {
+            Timeout timeout = head.next;
+            while (timeout != head) {
+                Timeout next = timeout.next;
+                if (timeout.epoch != current) {
+                    timeout.unlink();
+                    timeout.cancel(false);
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    private void cancelLinked() {
+        for (Timeout head : buckets) {
+            Timeout timeout = head.next;
+            while (timeout != head) {
+                Timeout next = timeout.next;
+                timeout.unlink();
+                timeout.cancel(false);
+                timeout = next;
+            }
+        }
+        processCancellations();
+    }
+
+    /**
+     * A task waiting in the wheel, linked into the list of its bucket.
+     */
+    private static final class Timeout implements ScheduledFuture<Void> {
+
+        private static final int PENDING = 0;
+
+        /**
+         * Its deadline is being moved by {@link #postpone}.
+         */
+        private static final int POSTPONING = 1;
+
+        private static final int RUNNING = 2;
+
+        private static final int COMPLETED = 3;
+
+        private static final int FAILED = 4;
+
+        private static final int CANCELLED = 5;
+
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Timeout.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final HashedTimingWheel wheel;
+
+        private final Runnable task;
+
+        private final int epoch;
+
+        /**
+         * Only moves later, and only while {@link #POSTPONING}.
+         */
+        private volatile long deadline;
+
+        private volatile int state;
+
+        private Throwable failure;
+
+        /**
+         * Whether a thread waits in {@link #get()}, so completing must notify it.
+         */
+        private volatile boolean awaited;
+
+        private long remainingRounds;
+
+        private Timeout prev;
+
+        private Timeout next;
+
+        private Timeout nextAdded;
+
+        private Timeout nextCancelled;
+
+        Timeout(HashedTimingWheel wheel, Runnable task, long deadline, int epoch) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+            this.epoch = epoch;
+        }
+
+        private boolean postpone(long newDeadline, int currentEpoch) {
+            if (epoch != currentEpoch || newDeadline < deadline
+                    || !STATE.compareAndSet(this, PENDING, POSTPONING)) {
+                return false;
+            }
+            deadline = newDeadline;
+            state = PENDING;
+            return true;
+        }
+
+        /**
+         * Runs the task if it is pending, and its deadline was not moved past the current tick.
+         * Only called by the timer thread.
+         *
+         * @return Whether the task ran, or was cancelled.
+         */
+        private boolean runIfDue() {
+            if (!STATE.compareAndSet(this, PENDING, RUNNING)) {
+                return state != POSTPONING;
+            }
+            // Read after claiming the task, so a postponement that completed before is seen
+            if (deadline > wheel.startNanos + wheel.tick * wheel.tickNanos) {
+                state = PENDING;
+                return false;
+            }
+
+            try {
+                task.run();
+                complete(COMPLETED);
+            } catch (Throwable e) {
+                // Reported here, as no one may ever ask for the result
+                log.error("Error running delayed task: {}", e.getMessage(), e);
+                failure = e;
+                complete(FAILED);
+            }
+            return true;
+        }
+
+        private void complete(int outcome) {
+            state = outcome;
+            if (awaited) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            int current;
+            while ((current = state) != PENDING) {
+                if (current != POSTPONING) {
+                    return false;
+                }
+                Thread.onSpinWait();
+            }
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return cancel(mayInterruptIfRunning);
+            }
+            complete(CANCELLED);
+
+            if (Thread.currentThread() != wheel.worker) {
+                // Unlinked by the timer thread, which owns the buckets
+                Timeout top;
+                do {
+                    top = wheel.cancellations.get();
+                    nextCancelled = top;
+                } while (!wheel.cancellations.compareAndSet(top, this));
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        @Override
+        public boolean isDone() {
+            return state > RUNNING;
+        }
+
+        @Override
+        public Void get() throws InterruptedException, ExecutionException {
+            if (!isDone()) {
+                awaited = true;
+                synchronized (this) {
+                    while (!isDone()) {
+                        wait();
+                    }
+                }
+            }
+            return result();
+        }
+
+        @Override
+        public Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            if (!isDone()) {
+                awaited = true;
+                long until = System.nanoTime() + unit.toNanos(timeout);
+                synchronized (this) {
+                    while (!isDone()) {
+                        long remaining = until - System.nanoTime();
+                        if (remaining <= 0) {
+                            throw new TimeoutException();
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    }
+                }
+            }
+            return result();
+        }
+
+        private Void result() throws ExecutionException {
+            return switch (state) {
+                case CANCELLED -> throw new CancellationException();
+                case FAILED -> throw new ExecutionException(failure);
+                default -> null;
+            };
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            if (other instanceof Timeout timeout) {
+                return Long.compare(deadline, timeout.deadline);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        private void link(Timeout head) {
+            prev = head.prev;
+            next = head;
+            head.prev.next = this;
+            head.prev = this;
+            wheel.linked++;
+        }
+
+        private void unlink() {
+            if (next == null) {
+                return;
+            }
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+            wheel.linked--;
+        }
+
+    }
+
+}
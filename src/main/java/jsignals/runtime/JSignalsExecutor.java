@@ -1,5 +1,10 @@
 package jsignals.runtime;
 
+import jsignals.util.JSignalsLogger;
+import org.slf4j.Logger;
+
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
@@ -7,37 +12,151 @@ import java.util.function.Supplier;
 /**
  * Manages virtual threads for the reactive system.
  * Provides efficient scheduling and execution of reactive computations.
+ * <p>
+ * How many tasks run at the same time is decided by the {@link ExecutionPolicy} of the executor.
+ * All tasks that are running or waiting can be cancelled together with {@link #cancelAll()}.
  */
 public class JSignalsExecutor implements Executor, AutoCloseable {
 
-    private static final JSignalsExecutor INSTANCE = new JSignalsExecutor();
+    private static final JSignalsExecutor INSTANCE = new JSignalsExecutor(DependencyTracker.getInstance().getMetrics());
 
     private final ThreadFactory virtualThreadFactory;
 
-    private final ScheduledExecutorService scheduler;
+    /**
+     * Created by the first call to {@link #getScheduler()}, as delayed tasks use the timing wheel.
+     */
+    private volatile ScheduledThreadPoolExecutor scheduler;
+
+    private final HashedTimingWheel timingWheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 512, "jsignals-timer");
 
     private final AtomicInteger threadCounter = new AtomicInteger(0);
 
-    JSignalsExecutor() {
+    private static final Logger log = JSignalsLogger.getLogger(JSignalsExecutor.class);
+
+    private final JSignalsMetrics metrics;
+
+    private final ExecutionPolicy policy;
+
+    /**
+     * Limits the tasks running at the same time, or {@code null} if unbounded.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Tasks waiting for a permit, or {@code null} if unbounded.
+     */
+    private final BlockingQueue<Runnable> queue;
+
+    /**
+     * Threads running tasks, so they can be interrupted by {@link #cancelAll()}.
+     */
+    private final Set<Thread> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Notified when the last task completes after {@link #shutdown()}.
+     */
+    private final Object terminationLock = new Object();
+
+    /**
+     * Work running outside this executor whose continuations run on it, such as resource fetches.
+     */
+    private final Set<Continuation> continuations = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean shuttingDown;
+
+    private volatile boolean closed;
+
+    JSignalsExecutor(JSignalsMetrics metrics) {
+        this(metrics, ExecutionPolicy.unbounded());
+    }
+
+    JSignalsExecutor(JSignalsMetrics metrics, ExecutionPolicy policy) {
+        this.metrics = metrics;
+        this.policy = Objects.requireNonNull(policy, "Execution policy cannot be null");
+        if (policy.isBounded()) {
+            this.permits = new Semaphore(policy.maxConcurrency());
+            this.queue = new LinkedBlockingQueue<>(policy.queueCapacity());
+        } else {
+            this.permits = null;
+            this.queue = null;
+        }
+
         // Create virtual thread factory
         this.virtualThreadFactory = Thread.ofVirtual()
                 .name("jsignals-vthread-", threadCounter.getAndIncrement())
                 .factory();
-
-        // Create a scheduler for delayed tasks
-        this.scheduler = Executors.newScheduledThreadPool(1, r -> {
-            Thread t = new Thread(r, "jsignals-scheduler");
-            t.setDaemon(true);
-            return t;
-        });
     }
 
     public static JSignalsExecutor getInstance() {
         return INSTANCE;
     }
 
+    /**
+     * Returns a scheduler for callers that need a {@link ScheduledExecutorService}. Tasks delayed
+     * through {@link #schedule(Runnable, long, TimeUnit)} use a timing wheel instead.
+     */
     public ScheduledExecutorService getScheduler() {
-        return scheduler;
+        ScheduledThreadPoolExecutor current = scheduler;
+        if (current == null) {
+            synchronized (this) {
+                current = scheduler;
+                if (current == null) {
+                    current = new ScheduledThreadPoolExecutor(1, r -> {
+                        Thread t = new Thread(r, "jsignals-scheduler");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    current.setRemoveOnCancelPolicy(true);
+                    if (shuttingDown || closed) {
+                        current.shutdown();
+                    }
+                    scheduler = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public ExecutionPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of tasks running.
+     */
+    public int getActiveCount() {
+        return running.size();
+    }
+
+    /**
+     * Returns the number of tasks waiting for a running task to complete.
+     */
+    public int getQueuedCount() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * Returns the number of pieces of work running outside this executor, such as resource
+     * fetches, whose continuations have yet to run on it.
+     */
+    public int getContinuationCount() {
+        return continuations.size();
+    }
+
+    /**
+     * Registers work running outside this executor, such as a resource fetch, whose continuation
+     * runs on this executor. Until {@link Continuation#done()} is called, the work counts as
+     * running: {@link #awaitTermination(long, TimeUnit)} waits for it, and its continuation is
+     * accepted while the executor shuts down. {@link #cancelAll()} cancels the work.
+     *
+     * @param work The work running outside this executor.
+     * @return The executor to hand the continuation over to.
+     */
+    public Continuation trackContinuation(Future<?> work) {
+        Objects.requireNonNull(work, "Work cannot be null");
+        Continuation continuation = new Continuation(work);
+        continuations.add(continuation);
+        return continuation;
     }
 
     /**
@@ -46,7 +165,13 @@ public class JSignalsExecutor implements Executor, AutoCloseable {
      * @return A CompletableFuture that completes when the task is done.
      */
     public CompletableFuture<Void> submit(Runnable task) {
-        return CompletableFuture.runAsync(task, this);
+        Objects.requireNonNull(task, "Task cannot be null");
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        execute(new Submitted(future, () -> {
+            task.run();
+            future.complete(null);
+        }));
+        return future;
     }
 
     /**
@@ -55,32 +180,166 @@ public class JSignalsExecutor implements Executor, AutoCloseable {
      * @return A CompletableFuture that will complete with the result of the task.
      */
     public <T> CompletableFuture<T> submit(Supplier<T> task) {
-        return CompletableFuture.supplyAsync(task, this);
+        Objects.requireNonNull(task, "Task cannot be null");
+        CompletableFuture<T> future = new CompletableFuture<>();
+        execute(new Submitted(future, () -> future.complete(task.get())));
+        return future;
     }
 
     /**
-     * Schedules a task to run on a virtual thread after a given delay.
+     * Schedules a task to run on a virtual thread after a given delay. Delays are measured with a
+     * precision of a millisecond, and scheduling or cancelling a task takes constant time.
+     * <p>
+     * A due task is queued like any other, but it is never run by the timer thread nor rejected, as
+     * it was accepted already: if the queue is full and the policy would run it on the caller or
+     * reject it, it starts on a thread of its own instead.
      *
      * @return A ScheduledFuture representing the pending completion of the task.
      */
     public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
-        // The task is first submitted to the scheduler, which then executes it on a virtual thread.
-        return scheduler.schedule(() -> this.execute(task), delay, unit);
+        Objects.requireNonNull(task, "Task cannot be null");
+        ensureAccepting();
+        // The timing wheel hands the task over to a virtual thread once it is due.
+        return timingWheel.schedule(() -> dispatch(task, false), delay, unit);
     }
 
     /**
-     * Executes a task on a virtual thread.
+     * Postpones a task scheduled with {@link #schedule(Runnable, long, TimeUnit)}, so it runs after
+     * the given delay from now instead. The pending task is reused, which makes resetting a debounce
+     * timer cheaper than cancelling it and scheduling a new one.
+     *
+     * @return {@code true} if the task was postponed, or {@code false} if it has started, completed
+     * or been cancelled already, in which case it must be scheduled again.
      */
+    public boolean postpone(ScheduledFuture<?> scheduled, long delay, TimeUnit unit) {
+        Objects.requireNonNull(scheduled, "Scheduled task cannot be null");
+        return !shuttingDown && timingWheel.postpone(scheduled, delay, unit);
+    }
+
+    /**
+     * Executes a task on a virtual thread, or queues it if the maximum number of tasks is running.
+     *
+     * @throws RejectedExecutionException If the queue is full and the policy rejects the task, or
+     *                                    if the executor is shutting down.
+     */
+    @Override
     public void execute(Runnable task) {
-        Thread vthread = virtualThreadFactory.newThread(task);
-        vthread.start();
+        Objects.requireNonNull(task, "Task cannot be null");
+        ensureAccepting();
+        dispatch(task, true);
+    }
+
+    /**
+     * @param fromCaller Whether the task comes from a caller that the policy may reject it to or run
+     *                   it on, rather than from the timer thread.
+     */
+    private void dispatch(Runnable task, boolean fromCaller) {
+        if (permits == null) {
+            start(task, false);
+            return;
+        }
+
+        if (permits.tryAcquire()) {
+            start(task, true);
+            return;
+        }
+
+        if (!queue.offer(task)) {
+            if (!fromCaller && policy.overflow() != ExecutionPolicy.Overflow.DROP_OLDEST) {
+                start(task, false);
+                return;
+            }
+            switch (policy.overflow()) {
+                case REJECT -> throw new RejectedExecutionException(
+                        "Task rejected, " + queue.size() + " tasks are waiting already");
+                case CALLER_RUNS -> {
+                    task.run();
+                    return;
+                }
+                case DROP_OLDEST -> {
+                    while (!queue.offer(task)) {
+                        Runnable dropped = queue.poll();
+                        if (dropped != null) {
+                            discard(dropped, new RejectedExecutionException("Task dropped to make room for a newer one"));
+                        }
+                    }
+                }
+            }
+        }
+
+        // A running task may have completed before this one was queued, in which case no one
+        // would start it
+        startQueued();
+    }
+
+    /**
+     * Cancels all outstanding work: tasks waiting to run or scheduled for later are dropped, and
+     * running tasks are interrupted. Futures of dropped tasks are cancelled. The executor remains
+     * usable afterwards.
+     */
+    public void cancelAll() {
+        if (queue != null) {
+            Runnable task;
+            while ((task = queue.poll()) != null) {
+                discard(task, new CancellationException("Task cancelled before it started"));
+            }
+        }
+        timingWheel.cancelAll();
+        for (Continuation continuation : continuations) {
+            continuation.work.cancel(true);
+        }
+        ScheduledThreadPoolExecutor current = scheduler;
+        if (current != null) {
+            for (Runnable scheduled : current.getQueue()) {
+                if (scheduled instanceof Future<?> future) {
+                    future.cancel(false);
+                }
+            }
+        }
+        for (Thread thread : running) {
+            thread.interrupt();
+        }
     }
 
     /**
-     * Initiates an orderly shutdown of the executor.
+     * Initiates an orderly shutdown of the executor. New tasks are rejected, except those submitted
+     * by running tasks, so that work in flight can complete. Delayed tasks that are not due yet are
+     * cancelled. Queued and running tasks are left to complete; see
+     * {@link #awaitTermination(long, TimeUnit)}.
      */
     public void shutdown() {
-        scheduler.shutdown();
+        shuttingDown = true;
+        timingWheel.cancelAll();
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdown();
+            }
+        }
+    }
+
+    public boolean isShutdown() {
+        return shuttingDown;
+    }
+
+    /**
+     * Waits until no task is running or queued, and no continuation is pending, after
+     * {@link #shutdown()}.
+     *
+     * @return {@code true} if all tasks completed, {@code false} if the timeout elapsed first.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (terminationLock) {
+            while (!running.isEmpty() || getQueuedCount() > 0 || !continuations.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(terminationLock, remaining);
+            }
+        }
+        return true;
     }
 
     /**
@@ -88,7 +347,143 @@ public class JSignalsExecutor implements Executor, AutoCloseable {
      */
     @Override
     public void close() {
-        scheduler.shutdownNow();
+        closed = true;
+        cancelAll();
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+        }
+        timingWheel.close();
+    }
+
+    /**
+     * Executes a task on a virtual thread right away, regardless of the policy. For work that is
+     * bounded already, like the drain workers of the {@link CoalescingScheduler}.
+     */
+    void executeUnbounded(Runnable task) {
+        start(task, false);
+    }
+
+    private void start(Runnable task, boolean permitted) {
+        Thread vthread = virtualThreadFactory.newThread(() -> runTask(task, permitted));
+        // Registered before it starts, so cancelAll() cannot miss it
+        running.add(vthread);
+        try {
+            vthread.start();
+        } catch (RuntimeException | Error e) {
+            running.remove(vthread);
+            if (permitted) {
+                permits.release();
+            }
+            throw e;
+        }
+        metrics.recordThreadSpawned();
+    }
+
+    private void runTask(Runnable task, boolean permitted) {
+        try {
+            task.run();
+        } finally {
+            running.remove(Thread.currentThread());
+            if (permitted) {
+                permits.release();
+                startQueued();
+            }
+            if (shuttingDown && running.isEmpty()) {
+                signalTermination();
+            }
+        }
+    }
+
+    private void signalTermination() {
+        synchronized (terminationLock) {
+            terminationLock.notifyAll();
+        }
+    }
+
+    private void ensureAccepting() {
+        // Tasks in flight may still hand over their continuations
+        if (shuttingDown && !running.contains(Thread.currentThread())) {
+            throw new RejectedExecutionException("Executor is shutting down");
+        }
+    }
+
+    private void startQueued() {
+        while (!queue.isEmpty() && permits.tryAcquire()) {
+            Runnable next = queue.poll();
+            if (next != null) {
+                start(next, true);
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    private void discard(Runnable task, RuntimeException reason) {
+        if (task instanceof Submitted submitted) {
+            submitted.future.completeExceptionally(reason);
+        } else {
+            log.debug("Discarded task: {}", reason.getMessage());
+        }
+    }
+
+    /**
+     * Work running outside the executor, whose continuation is handed over to the executor even
+     * while it shuts down, until the executor is closed.
+     */
+    public final class Continuation implements Executor {
+
+        private final Future<?> work;
+
+        private Continuation(Future<?> work) {
+            this.work = work;
+        }
+
+        /**
+         * @throws RejectedExecutionException If the queue is full and the policy rejects the task,
+         *                                    or if the executor is closed.
+         */
+        @Override
+        public void execute(Runnable task) {
+            Objects.requireNonNull(task, "Task cannot be null");
+            if (closed) {
+                throw new RejectedExecutionException("Executor is closed");
+            }
+            dispatch(task, true);
+        }
+
+        /**
+         * Stops tracking the work, once its continuation completed or will never run.
+         */
+        public void done() {
+            if (continuations.remove(this) && shuttingDown) {
+                signalTermination();
+            }
+        }
+
+    }
+
+    /**
+     * A task whose result is delivered through a future. Completes the future exceptionally when
+     * the task fails, and skips the task when the future was completed before it started, e.g.
+     * when it was cancelled.
+     */
+    private record Submitted(CompletableFuture<?> future, Runnable body) implements Runnable {
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                body.run();
+            } catch (Throwable e) {
+                // Wrapped like CompletableFuture.runAsync() does
+                future.completeExceptionally(e instanceof CompletionException ? e : new CompletionException(e));
+            }
+        }
+
     }
 
 }
@@ -0,0 +1,372 @@
+package jsignals.runtime;
+
+import jsignals.util.JSignalsLogger;
+import org.slf4j.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms describing how hard a reactive graph is working.
+ * <p>
+ * Every {@link DependencyTracker} owns one instance, shared by all nodes of its graph. Metrics are
+ * disabled by default; while disabled, recording is a single read of a volatile flag. Counters are
+ * striped ({@link LongAdder}), so threads recording concurrently do not contend on a shared
+ * memory location. The progress of a graceful shutdown is recorded whether metrics are enabled or
+ * not.
+ *
+ * @see JSignalsRuntime#enableMetrics()
+ */
+public final class JSignalsMetrics implements JSignalsMetricsMXBean {
+
+    private static final Logger log = JSignalsLogger.getLogger(JSignalsMetrics.class);
+
+    private volatile boolean enabled = false;
+
+    private final LongAdder refWrites = new LongAdder();
+
+    private final LongAdder suppressedWrites = new LongAdder();
+
+    private final LongAdder recomputes = new LongAdder();
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder effectRuns = new LongAdder();
+
+    private final LongAdder resourceFetches = new LongAdder();
+
+    private final LongAdder resourceCancellations = new LongAdder();
+
+    private final LongAdder resourceErrors = new LongAdder();
+
+    private final LongAdder threadsSpawned = new LongAdder();
+
+    private final LongAdder propagationTimeTotal = new LongAdder();
+
+    private final Histogram fanOut = new Histogram();
+
+    private final Histogram propagationTime = new Histogram();
+
+    private volatile boolean shuttingDown;
+
+    private volatile int shutdownTasksAtStart;
+
+    private volatile int shutdownTasksRemaining;
+
+    private volatile int shutdownTasksCancelled;
+
+    private ObjectName objectName;
+
+    JSignalsMetrics() { }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void recordRefWrite() {
+        if (enabled) {
+            refWrites.increment();
+        }
+    }
+
+    public void recordSuppressedWrite() {
+        if (enabled) {
+            suppressedWrites.increment();
+        }
+    }
+
+    public void recordRecompute() {
+        if (enabled) {
+            recomputes.increment();
+        }
+    }
+
+    public void recordCacheHit() {
+        if (enabled) {
+            cacheHits.increment();
+        }
+    }
+
+    public void recordEffectRun() {
+        if (enabled) {
+            effectRuns.increment();
+        }
+    }
+
+    public void recordResourceFetch() {
+        if (enabled) {
+            resourceFetches.increment();
+        }
+    }
+
+    public void recordResourceCancellation() {
+        if (enabled) {
+            resourceCancellations.increment();
+        }
+    }
+
+    public void recordResourceError() {
+        if (enabled) {
+            resourceErrors.increment();
+        }
+    }
+
+    void recordThreadSpawned() {
+        if (enabled) {
+            threadsSpawned.increment();
+        }
+    }
+
+    /**
+     * Records a propagation that notified subscribers or re-ran eager dependents.
+     *
+     * @param dependents  Number of eager dependents re-run.
+     * @param elapsedNanos Wall time of the propagation.
+     */
+    void recordPropagation(int dependents, long elapsedNanos) {
+        if (enabled) {
+            fanOut.record(dependents);
+            propagationTime.record(elapsedNanos);
+            propagationTimeTotal.add(elapsedNanos);
+        }
+    }
+
+    /**
+     * Records the start of a graceful shutdown.
+     *
+     * @param tasks Tasks, recomputations and effects in flight.
+     */
+    void recordShutdownStarted(int tasks) {
+        shutdownTasksAtStart = tasks;
+        shutdownTasksRemaining = tasks;
+        shutdownTasksCancelled = 0;
+        shuttingDown = true;
+    }
+
+    void recordShutdownProgress(int remainingTasks) {
+        shutdownTasksRemaining = remainingTasks;
+    }
+
+    /**
+     * Records the end of a graceful shutdown.
+     *
+     * @param cancelledTasks Tasks, recomputations and effects cancelled as the timeout elapsed.
+     */
+    void recordShutdownCompleted(int cancelledTasks) {
+        shutdownTasksRemaining = 0;
+        shutdownTasksCancelled = cancelledTasks;
+        shuttingDown = false;
+    }
+
+    @Override
+    public long getRefWrites() {
+        return refWrites.sum();
+    }
+
+    @Override
+    public long getSuppressedWrites() {
+        return suppressedWrites.sum();
+    }
+
+    @Override
+    public long getRecomputes() {
+        return recomputes.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getEffectRuns() {
+        return effectRuns.sum();
+    }
+
+    @Override
+    public long getResourceFetches() {
+        return resourceFetches.sum();
+    }
+
+    @Override
+    public long getResourceCancellations() {
+        return resourceCancellations.sum();
+    }
+
+    @Override
+    public long getResourceErrors() {
+        return resourceErrors.sum();
+    }
+
+    @Override
+    public long getThreadsSpawned() {
+        return threadsSpawned.sum();
+    }
+
+    @Override
+    public long getPropagations() {
+        return propagationTime.count();
+    }
+
+    @Override
+    public long getPropagationTimeTotalNanos() {
+        return propagationTimeTotal.sum();
+    }
+
+    @Override
+    public long[] getFanOutHistogram() {
+        return fanOut.snapshot();
+    }
+
+    @Override
+    public long[] getPropagationTimeHistogram() {
+        return propagationTime.snapshot();
+    }
+
+    @Override
+    public boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
+    @Override
+    public int getShutdownTasksAtStart() {
+        return shutdownTasksAtStart;
+    }
+
+    @Override
+    public int getShutdownTasksRemaining() {
+        return shutdownTasksRemaining;
+    }
+
+    @Override
+    public int getShutdownTasksCancelled() {
+        return shutdownTasksCancelled;
+    }
+
+    @Override
+    public void reset() {
+        refWrites.reset();
+        suppressedWrites.reset();
+        recomputes.reset();
+        cacheHits.reset();
+        effectRuns.reset();
+        resourceFetches.reset();
+        resourceCancellations.reset();
+        resourceErrors.reset();
+        threadsSpawned.reset();
+        propagationTimeTotal.reset();
+        fanOut.reset();
+        propagationTime.reset();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server.
+     *
+     * @param name The name of the runtime, used as the {@code name} key of the object name.
+     */
+    synchronized void register(String name) {
+        if (objectName != null) {
+            return;
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName candidate = new ObjectName("jsignals:type=Metrics,name=" + ObjectName.quote(name));
+            server.registerMBean(this, candidate);
+            objectName = candidate;
+        } catch (InstanceAlreadyExistsException e) {
+            log.warn("Metrics MBean {} is already registered.", name);
+        } catch (JMException e) {
+            log.error("Could not register metrics MBean {}: {}", name, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server, if they were registered.
+     */
+    synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+            // Already gone
+        } catch (JMException e) {
+            log.error("Could not unregister metrics MBean {}: {}", objectName, e.getMessage(), e);
+        }
+        objectName = null;
+    }
+
+    /**
+     * Returns the object name these metrics are registered under, or {@code null}.
+     */
+    public synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * A histogram with power-of-two buckets and striped bucket counters.
+     */
+    private static final class Histogram {
+
+        private static final int BUCKETS = 64;
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        Histogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long value) {
+            int bucket = value <= 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros(value);
+            buckets[Math.min(bucket, BUCKETS - 1)].increment();
+        }
+
+        long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * Returns the bucket counts, without the empty buckets at the end.
+         */
+        long[] snapshot() {
+            long[] counts = new long[BUCKETS];
+            int length = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                if (counts[i] != 0) {
+                    length = i + 1;
+                }
+            }
+            return Arrays.copyOf(counts, length);
+        }
+
+        void reset() {
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+package jsignals.runtime;
+
+/**
+ * Management interface of {@link JSignalsMetrics}, as exposed over JMX.
+ * <p>
+ * Histograms are reported as arrays of bucket counts. Bucket {@code 0} counts the value zero, and
+ * bucket {@code i > 0} counts values in {@code [2^(i-1), 2^i)}.
+ */
+public interface JSignalsMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Writes to refs that changed the value.
+     */
+    long getRefWrites();
+
+    /**
+     * Writes to refs that were ignored because the value was equal to the current one.
+     */
+    long getSuppressedWrites();
+
+    /**
+     * Runs of computed value computations.
+     */
+    long getRecomputes();
+
+    /**
+     * Reads of computed values served from the cache without any checks.
+     */
+    long getCacheHits();
+
+    long getEffectRuns();
+
+    long getResourceFetches();
+
+    long getResourceCancellations();
+
+    long getResourceErrors();
+
+    /**
+     * Virtual threads started by the executor of the runtime.
+     */
+    long getThreadsSpawned();
+
+    /**
+     * Propagations that re-ran eager dependents or ran notifications deferred by a batch.
+     */
+    long getPropagations();
+
+    long getPropagationTimeTotalNanos();
+
+    /**
+     * Number of eager dependents re-run per propagation.
+     */
+    long[] getFanOutHistogram();
+
+    /**
+     * Wall time of propagations, in nanoseconds.
+     */
+    long[] getPropagationTimeHistogram();
+
+    /**
+     * Whether a graceful shutdown of the runtime is in progress.
+     *
+     * @see JSignalsRuntime#close(java.time.Duration)
+     */
+    boolean isShuttingDown();
+
+    /**
+     * Tasks, recomputations and effects in flight when the last graceful shutdown started.
+     */
+    int getShutdownTasksAtStart();
+
+    /**
+     * Tasks, recomputations and effects of the last graceful shutdown that have not completed yet.
+     */
+    int getShutdownTasksRemaining();
+
+    /**
+     * Tasks, recomputations and effects cancelled by the last graceful shutdown, as its timeout
+     * elapsed before they completed.
+     */
+    int getShutdownTasksCancelled();
+
+    /**
+     * Resets all counters and histograms to zero. The progress of shutdowns is kept.
+     */
+    void reset();
+
+}
@@ -1,25 +1,173 @@
 package jsignals.runtime;
 
+import jsignals.async.ResourceRef;
+import jsignals.core.*;
 import jsignals.util.JSignalsLogger;
 import org.slf4j.Logger;
 
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
 /**
- * Manages the lifecycle of shared resources for the JSignals library,
- * primarily the executor service.
+ * Manages the lifecycle of a reactive graph and the services it runs on: the dependency tracker,
+ * the executor and the effect runner.
+ * <p>
+ * Every runtime created with {@link #JSignalsRuntime()} owns an isolated graph. Primitives created
+ * through its factory methods belong to that graph, and never contend with primitives of other
+ * runtimes. Primitives of different graphs must not read each other.
  * <p>
  * This class is AutoCloseable, allowing for easy resource cleanup using a try-with-resources block.
  */
 public final class JSignalsRuntime implements AutoCloseable {
 
+    private static final AtomicInteger runtimeCounter = new AtomicInteger(0);
+
+    /**
+     * How often a graceful shutdown reports its progress.
+     */
+    private static final long SHUTDOWN_PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * How long a graceful shutdown sleeps while waiting for recomputations off the executor.
+     */
+    private static final long SHUTDOWN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+
+    private final DependencyTracker tracker;
+
     private final JSignalsExecutor executor;
 
+    /**
+     * The worker of the partition this runtime belongs to, or {@code null}.
+     */
+    private final Executor worker;
+
+    private final CoalescingScheduler recomputeScheduler;
+
+    private final EffectRunner effectRunner;
+
+    private volatile boolean closed = false;
+
     private static final Logger log = JSignalsLogger.getLogger("jsignals");
 
     /**
-     * Creates a new runtime, initializing all necessary services.
+     * Creates a new runtime with its own graph, initializing all necessary services.
      */
     public JSignalsRuntime() {
-        this.executor = new JSignalsExecutor();
+        this(EffectDispatch.INLINE);
+    }
+
+    /**
+     * Creates a new runtime with its own graph, whose effects re-run as given.
+     *
+     * @param effectDispatch Where effects re-run after their dependencies change.
+     */
+    public JSignalsRuntime(EffectDispatch effectDispatch) {
+        this(ExecutionPolicy.unbounded(), effectDispatch);
+    }
+
+    /**
+     * Creates a new runtime with its own graph, whose tasks and effects run as given.
+     *
+     * @param executionPolicy How many tasks, like resource fetches, run at the same time.
+     * @param effectDispatch  Where effects re-run after their dependencies change.
+     */
+    public JSignalsRuntime(ExecutionPolicy executionPolicy, EffectDispatch effectDispatch) {
+        this(nextName(), new DependencyTracker(), executionPolicy, effectDispatch, null);
+    }
+
+    /**
+     * Creates a runtime with its own graph, confined to the given worker: eager values are
+     * recomputed by a single drain worker started on it, and deferred effect re-runs and the
+     * results of resource fetches run on it. Used by {@link Partition}.
+     */
+    JSignalsRuntime(String name, ExecutionPolicy executionPolicy, Executor worker) {
+        this(name, new DependencyTracker(), executionPolicy, EffectDispatch.INLINE, worker);
+    }
+
+    private JSignalsRuntime(String name, DependencyTracker tracker, ExecutionPolicy executionPolicy,
+                            EffectDispatch effectDispatch, Executor worker) {
+        this.name = name;
+        this.tracker = tracker;
+        this.executor = new JSignalsExecutor(tracker.getMetrics(), executionPolicy);
+        this.worker = worker;
+        if (worker != null) {
+            this.recomputeScheduler = new CoalescingScheduler(worker, 1);
+        } else {
+            // The drain workers are bounded by the scheduler already
+            this.recomputeScheduler = new CoalescingScheduler(executor::executeUnbounded,
+                    Runtime.getRuntime().availableProcessors());
+        }
+        if (tracker != DependencyTracker.getInstance()) {
+            // The default graph may be shared by several runtimes, and keeps scheduling its
+            // recomputations on the runtime of JSignals
+            tracker.setRecomputeScheduler(recomputeScheduler);
+        }
+        this.effectRunner = new EffectRunner(tracker, effectDispatch, executor, worker);
+    }
+
+    /**
+     * Creates a new runtime for the default graph, shared by all primitives created without a
+     * runtime. This is the runtime behind {@link jsignals.JSignals#initRuntime()}.
+     *
+     * @return The newly created runtime.
+     */
+    public static JSignalsRuntime forDefaultGraph() {
+        return forDefaultGraph(EffectDispatch.INLINE);
+    }
+
+    /**
+     * Creates a new runtime for the default graph, whose effects re-run as given.
+     *
+     * @param effectDispatch Where effects re-run after their dependencies change.
+     * @return The newly created runtime.
+     */
+    public static JSignalsRuntime forDefaultGraph(EffectDispatch effectDispatch) {
+        return forDefaultGraph(ExecutionPolicy.unbounded(), effectDispatch);
+    }
+
+    /**
+     * Creates a new runtime for the default graph, whose tasks and effects run as given.
+     *
+     * @param executionPolicy How many tasks, like resource fetches, run at the same time.
+     * @param effectDispatch  Where effects re-run after their dependencies change.
+     * @return The newly created runtime.
+     */
+    public static JSignalsRuntime forDefaultGraph(ExecutionPolicy executionPolicy, EffectDispatch effectDispatch) {
+        return new JSignalsRuntime("default", DependencyTracker.getInstance(), executionPolicy, effectDispatch, null);
+    }
+
+    /**
+     * Returns a unique name for a new runtime.
+     */
+    static String nextName() {
+        return "runtime-" + runtimeCounter.incrementAndGet();
+    }
+
+    /**
+     * Gets the name of this runtime, which identifies its metrics over JMX.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the dependency tracker of the graph managed by this runtime.
+     *
+     * @return The tracker of this runtime's graph.
+     */
+    public DependencyTracker getTracker() {
+        return tracker;
     }
 
     /**
@@ -31,6 +179,418 @@ public final class JSignalsRuntime implements AutoCloseable {
         return executor;
     }
 
+    /**
+     * Gets the worker thread this runtime's graph is confined to, if it belongs to a
+     * {@link Partition}. Work that would otherwise run on the executor and touches the graph, like
+     * deferred effect re-runs and the results of resource fetches, runs on it.
+     *
+     * @return The worker of the partition, or {@code null} if the graph is not confined.
+     */
+    public Executor getWorker() {
+        return worker;
+    }
+
+    /**
+     * Gets the scheduler running the recomputations of eager values in this runtime's graph.
+     *
+     * @return The recompute scheduler of this runtime.
+     */
+    public CoalescingScheduler getRecomputeScheduler() {
+        return recomputeScheduler;
+    }
+
+    /**
+     * Gets the effect runner managed by this runtime.
+     *
+     * @return The effect runner of this runtime's graph.
+     */
+    public EffectRunner getEffectRunner() {
+        return effectRunner;
+    }
+
+    /**
+     * Gets the metrics of this runtime's graph. They are only recorded once enabled.
+     *
+     * @return The metrics of this runtime's graph.
+     * @see #enableMetrics()
+     */
+    public JSignalsMetrics getMetrics() {
+        return tracker.getMetrics();
+    }
+
+    /**
+     * Starts recording the metrics of this runtime's graph, and registers them with the platform
+     * MBean server as {@code jsignals:type=Metrics,name="<name>"}. They are unregistered when this
+     * runtime is closed.
+     *
+     * @return The metrics of this runtime's graph.
+     */
+    public JSignalsMetrics enableMetrics() {
+        ensureOpen();
+        JSignalsMetrics metrics = tracker.getMetrics();
+        metrics.setEnabled(true);
+        metrics.register(name);
+        return metrics;
+    }
+
+    /**
+     * Gets the profiler of the computations of this runtime's graph. Profiling is off until
+     * enabled with {@link ComputationProfiler#enable(double)}.
+     *
+     * @return The profiler of this runtime's graph.
+     */
+    public ComputationProfiler getProfiler() {
+        return tracker.getProfiler();
+    }
+
+    /**
+     * Takes a snapshot of the structure of this runtime's graph, without blocking it.
+     *
+     * @return The snapshot, which can be exported to DOT or JSON.
+     * @see DependencyTracker#snapshot()
+     */
+    public GraphSnapshot snapshot() {
+        return tracker.snapshot();
+    }
+
+    /**
+     * Creates a reactive reference in this runtime's graph.
+     */
+    public <T> Ref<T> ref(T initialValue) {
+        return ref(initialValue, Equality.objectEquals());
+    }
+
+    /**
+     * Creates a reactive reference with a custom equality strategy in this runtime's graph.
+     */
+    public <T> Ref<T> ref(T initialValue, Equality<? super T> equality) {
+        ensureOpen();
+        return new Ref<>(this, initialValue, equality);
+    }
+
+    /**
+     * Creates a computed value in this runtime's graph.
+     */
+    public <T> ComputedRef<T> computed(Supplier<T> computation) {
+        return computed(computation, Equality.objectEquals());
+    }
+
+    /**
+     * Creates a computed value with a custom equality strategy in this runtime's graph.
+     */
+    public <T> ComputedRef<T> computed(Supplier<T> computation, Equality<? super T> equality) {
+        ensureOpen();
+        return new ComputedRef<>(this, computation, true, equality);
+    }
+
+    /**
+     * Creates a computed value in this runtime's graph, that depends on the given sources only.
+     *
+     * @see jsignals.JSignals#computed(Dependencies, Supplier)
+     */
+    public <T> ComputedRef<T> computed(Dependencies dependencies, Supplier<T> computation) {
+        return computed(dependencies, computation, Equality.objectEquals());
+    }
+
+    /**
+     * Creates a computed value with a custom equality strategy in this runtime's graph, that
+     * depends on the given sources only.
+     */
+    public <T> ComputedRef<T> computed(Dependencies dependencies, Supplier<T> computation, Equality<? super T> equality) {
+        ensureOpen();
+        return new ComputedRef<>(this, dependencies, computation, true, equality);
+    }
+
+    /**
+     * Creates a reactive {@code int} reference in this runtime's graph.
+     */
+    public IntRef intRef(int initialValue) {
+        ensureOpen();
+        return new IntRef(this, initialValue);
+    }
+
+    /**
+     * Creates a reactive {@code long} reference in this runtime's graph.
+     */
+    public LongRef longRef(long initialValue) {
+        ensureOpen();
+        return new LongRef(this, initialValue);
+    }
+
+    /**
+     * Creates a reactive {@code double} reference in this runtime's graph.
+     */
+    public DoubleRef doubleRef(double initialValue) {
+        ensureOpen();
+        return new DoubleRef(this, initialValue);
+    }
+
+    /**
+     * Creates a reactive {@code boolean} reference in this runtime's graph.
+     */
+    public BooleanRef booleanRef(boolean initialValue) {
+        ensureOpen();
+        return new BooleanRef(this, initialValue);
+    }
+
+    /**
+     * Creates a computed {@code int} value in this runtime's graph.
+     */
+    public ComputedIntRef computedInt(IntSupplier computation) {
+        ensureOpen();
+        return new ComputedIntRef(this, computation, true);
+    }
+
+    /**
+     * Creates a computed {@code long} value in this runtime's graph.
+     */
+    public ComputedLongRef computedLong(LongSupplier computation) {
+        ensureOpen();
+        return new ComputedLongRef(this, computation, true);
+    }
+
+    /**
+     * Creates a computed {@code double} value in this runtime's graph.
+     */
+    public ComputedDoubleRef computedDouble(DoubleSupplier computation) {
+        ensureOpen();
+        return new ComputedDoubleRef(this, computation, true);
+    }
+
+    /**
+     * Creates a computed {@code boolean} value in this runtime's graph.
+     */
+    public ComputedBooleanRef computedBoolean(BooleanSupplier computation) {
+        ensureOpen();
+        return new ComputedBooleanRef(this, computation, true);
+    }
+
+    /**
+     * Creates a trigger in this runtime's graph.
+     */
+    public TriggerRef trigger() {
+        ensureOpen();
+        return new TriggerRef(this);
+    }
+
+    /**
+     * Creates a resource in this runtime's graph, fetched on this runtime's executor. In a
+     * partition, the results are applied on its worker.
+     */
+    public <T> ResourceRef<T> resource(Supplier<CompletableFuture<T>> fetcher) {
+        return resource(fetcher, Duration.ZERO);
+    }
+
+    /**
+     * Creates a resource with a custom debounce delay in this runtime's graph.
+     */
+    public <T> ResourceRef<T> resource(Supplier<CompletableFuture<T>> fetcher, Duration debounceDelay) {
+        ensureOpen();
+        return new ResourceRef<>(this, fetcher, true, executor, debounceDelay);
+    }
+
+    /**
+     * Creates an effect in this runtime's graph, that re-runs when its dependencies change.
+     */
+    public Disposable effect(Runnable effect) {
+        ensureOpen();
+        return effectRunner.runEffect(effect);
+    }
+
+    /**
+     * Creates an effect in this runtime's graph, that re-runs when its dependencies change, as
+     * scheduled by the given options.
+     */
+    public Disposable effect(Runnable effect, EffectOptions options) {
+        ensureOpen();
+        return effectRunner.runEffect(effect, options);
+    }
+
+    /**
+     * Creates an effect in this runtime's graph, that re-runs when one of the given sources
+     * changes.
+     *
+     * @see jsignals.JSignals#effect(Dependencies, Runnable)
+     */
+    public Disposable effect(Dependencies dependencies, Runnable effect) {
+        return effect(dependencies, effect, EffectOptions.sync());
+    }
+
+    /**
+     * Creates an effect in this runtime's graph, that re-runs when one of the given sources
+     * changes, as scheduled by the given options.
+     */
+    public Disposable effect(Dependencies dependencies, Runnable effect, EffectOptions options) {
+        Objects.requireNonNull(dependencies, "Dependencies cannot be null");
+        ensureOpen();
+        return effectRunner.runEffect(dependencies, effect, options);
+    }
+
+    /**
+     * Reads values of this runtime's graph without tracking them.
+     *
+     * @see jsignals.JSignals#untrack(Supplier)
+     */
+    public <T> T untrack(Supplier<T> read) {
+        Objects.requireNonNull(read, "Read cannot be null");
+
+        tracker.startUntracked();
+        try {
+            return read.get();
+        } finally {
+            tracker.stopTracking();
+        }
+    }
+
+    /**
+     * Runs an action as a batch in this runtime's graph.
+     *
+     * @see jsignals.JSignals#batch(Runnable)
+     */
+    public void batch(Runnable action) {
+        Objects.requireNonNull(action, "Batch action cannot be null");
+
+        tracker.startBatch();
+        try {
+            action.run();
+        } finally {
+            tracker.endBatch();
+        }
+    }
+
+    /**
+     * Runs a value-returning action as a batch in this runtime's graph.
+     *
+     * @return The value returned by the action.
+     * @see jsignals.JSignals#batch(Supplier)
+     */
+    public <T> T batch(Supplier<T> action) {
+        Objects.requireNonNull(action, "Batch action cannot be null");
+
+        tracker.startBatch();
+        try {
+            return action.get();
+        } finally {
+            tracker.endBatch();
+        }
+    }
+
+    /**
+     * Runs the effects of this runtime's graph that are waiting for the effect thread, and returns
+     * once none are left.
+     *
+     * @see EffectRunner#flush()
+     */
+    public void flush() {
+        effectRunner.flush();
+    }
+
+    /**
+     * Cancels all outstanding tasks of this runtime: queued and scheduled tasks are dropped, and
+     * running tasks are interrupted.
+     *
+     * @see JSignalsExecutor#cancelAll()
+     */
+    public void cancelAll() {
+        executor.cancelAll();
+    }
+
+    /**
+     * Checks whether this runtime has been closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("JSignalsRuntime has been closed.");
+        }
+    }
+
+    /**
+     * Shuts down this runtime gracefully, giving the work in flight time to complete:
+     * <ol>
+     *     <li>New primitives and tasks are rejected, and delayed tasks that are not due yet are
+     *     cancelled. Running tasks may still hand over their continuations.</li>
+     *     <li>Effects waiting for the effect thread are run.</li>
+     *     <li>Running and queued tasks, resource fetches in flight and recomputations are awaited.
+     *     As they may re-run effects, and effects may start tasks, the previous steps repeat until
+     *     all of them are done.</li>
+     *     <li>Whatever is left when the timeout elapses is cancelled, as by {@link #close()}.</li>
+     * </ol>
+     * The progress of the shutdown is reported by the {@linkplain #getMetrics() metrics} of this
+     * runtime.
+     *
+     * @param timeout How long to wait for the work in flight in total.
+     * @return How much work was in flight, and how much had to be cancelled.
+     */
+    public ShutdownReport close(Duration timeout) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        log.debug("Shutting down runtime...");
+        closed = true;
+
+        JSignalsMetrics metrics = tracker.getMetrics();
+        int runningAtStart = executor.getActiveCount() + executor.getContinuationCount() + effectRunner.getRunningCount();
+        int queuedAtStart = executor.getQueuedCount() + recomputeScheduler.getQueuedCount()
+                + effectRunner.getPendingCount();
+        metrics.recordShutdownStarted(runningAtStart + queuedAtStart);
+        executor.shutdown();
+
+        try {
+            while (!isIdle()) {
+                metrics.recordShutdownProgress(getUnfinishedCount());
+                if (deadline - System.nanoTime() <= 0) {
+                    break;
+                }
+
+                // Every wait is bounded by the time left, so the deadline is never overshot
+                if (effectRunner.flush(waitNanos(deadline, SHUTDOWN_PROGRESS_INTERVAL_NANOS), TimeUnit.NANOSECONDS)
+                        && executor.awaitTermination(waitNanos(deadline, SHUTDOWN_PROGRESS_INTERVAL_NANOS), TimeUnit.NANOSECONDS)
+                        && !isIdle()) {
+                    // Only recomputations running off the executor are left, e.g. on the worker
+                    // of a partition
+                    TimeUnit.NANOSECONDS.sleep(waitNanos(deadline, SHUTDOWN_POLL_NANOS));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int cancelled = getUnfinishedCount();
+
+        close();
+        metrics.recordShutdownCompleted(cancelled);
+
+        ShutdownReport report = new ShutdownReport(runningAtStart, queuedAtStart, cancelled,
+                Duration.ofNanos(System.nanoTime() - start));
+        if (!report.isGraceful()) {
+            log.warn("Runtime shutdown timed out after {}, cancelled {} tasks.", report.elapsed(), cancelled);
+        }
+        return report;
+    }
+
+    /**
+     * Returns the number of tasks, resource fetches, recomputations and effects that are running
+     * or waiting to run. The drain workers of recomputations are not counted on their own, as the
+     * recomputations they run are.
+     */
+    private int getUnfinishedCount() {
+        return executor.getActiveCount() + executor.getQueuedCount() + executor.getContinuationCount()
+                + recomputeScheduler.getQueuedCount() + effectRunner.getRunningCount() + effectRunner.getPendingCount();
+    }
+
+    /**
+     * Returns how long to wait at most, without going past the deadline.
+     */
+    private static long waitNanos(long deadline, long maxNanos) {
+        return Math.max(0, Math.min(deadline - System.nanoTime(), maxNanos));
+    }
+
+    private boolean isIdle() {
+        return getUnfinishedCount() == 0 && recomputeScheduler.getActiveWorkers() == 0;
+    }
+
     /**
      * Shuts down all services managed by this runtime.
      * Implements the AutoCloseable interface.
@@ -38,7 +598,11 @@ public final class JSignalsRuntime implements AutoCloseable {
     @Override
     public void close() {
         log.debug("Closing runtime...");
+        closed = true;
         executor.close();
+        recomputeScheduler.cancelAll();
+        effectRunner.close();
+        tracker.getMetrics().unregister();
         log.info("Runtime closed.");
     }
 
@@ -0,0 +1,79 @@
+package jsignals.runtime;
+
+import jsignals.core.SignalNode;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Weakly references every node of a graph, so the graph can be inspected as a whole.
+ * <p>
+ * Registering a node is lock-free. References to collected nodes are swept once the number of
+ * registrations since the last sweep reaches the number of nodes that survived it, which keeps
+ * the cost of sweeping constant per registration.
+ */
+final class NodeRegistry {
+
+    private static final int MIN_SWEEP_INTERVAL = 1024;
+
+    private final Queue<WeakReference<SignalNode>> nodes = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger registeredSinceSweep = new AtomicInteger();
+
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private volatile int sweepInterval = MIN_SWEEP_INTERVAL;
+
+    void register(SignalNode node) {
+        nodes.add(new WeakReference<>(node));
+        if (registeredSinceSweep.incrementAndGet() >= sweepInterval) {
+            sweep();
+        }
+    }
+
+    /**
+     * Returns the nodes that have not been garbage collected.
+     */
+    List<SignalNode> liveNodes() {
+        List<SignalNode> result = new ArrayList<>();
+        for (WeakReference<SignalNode> reference : nodes) {
+            SignalNode node = reference.get();
+            if (node != null) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the references to nodes that have been collected but not swept yet.
+     */
+    int staleCount() {
+        int stale = 0;
+        for (WeakReference<SignalNode> reference : nodes) {
+            if (reference.refersTo(null)) {
+                stale++;
+            }
+        }
+        return stale;
+    }
+
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return; // Another thread is already sweeping
+        }
+        try {
+            registeredSinceSweep.set(0);
+            nodes.removeIf(reference -> reference.refersTo(null));
+            sweepInterval = Math.max(MIN_SWEEP_INTERVAL, nodes.size());
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+}
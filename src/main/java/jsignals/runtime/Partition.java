@@ -0,0 +1,121 @@
+package jsignals.runtime;
+
+import jsignals.util.JSignalsLogger;
+import org.slf4j.Logger;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * An island of a {@link PartitionedRuntime}: a graph of its own, confined to a single worker
+ * thread.
+ * <p>
+ * Primitives created through {@link #getRuntime()} belong to the partition. Writes to them, the
+ * computations reading them and subscriptions to them must be sent to the worker with
+ * {@link #execute(Runnable)}, and fail with an {@link IllegalStateException} on other threads. As
+ * the graph is never used concurrently, it skips the locks and atomic updates that guard a shared
+ * graph; propagation, the recomputation of eager
+ * values and effects then all run on the worker, one after the other, as in an actor. Deferred
+ * effect re-runs, like those of {@link EffectOptions#async()} effects, and the results of resource
+ * fetches are handed over to the worker as well. As nothing is shared with other partitions, the
+ * graph never contends with them, and partitions scale across cores. Values are passed between
+ * partitions by sending tasks, not by reading primitives of another partition.
+ */
+public final class Partition implements Executor, AutoCloseable {
+
+    private static final Logger log = JSignalsLogger.getLogger(Partition.class);
+
+    private final int index;
+
+    private final ThreadPoolExecutor worker;
+
+    private final JSignalsRuntime runtime;
+
+    private volatile Thread workerThread;
+
+    Partition(String name, int index, ExecutionPolicy executionPolicy) {
+        this.index = index;
+        this.worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                r -> newWorkerThread(name, r));
+        this.runtime = new JSignalsRuntime(name, executionPolicy, worker);
+        worker.prestartCoreThread();
+        runtime.getTracker().confineTo(workerThread);
+    }
+
+    private Thread newWorkerThread(String name, Runnable r) {
+        Thread t = Thread.ofPlatform().name(name).daemon().unstarted(r);
+        workerThread = t;
+        if (runtime != null) {
+            // A worker replacing one that died takes over its graph
+            runtime.getTracker().confineTo(t);
+        }
+        return t;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the runtime of this partition, whose factory methods create primitives in its graph.
+     */
+    public JSignalsRuntime getRuntime() {
+        return runtime;
+    }
+
+    /**
+     * Runs a task on the worker of this partition, after the tasks sent before it.
+     */
+    @Override
+    public void execute(Runnable task) {
+        Objects.requireNonNull(task, "Task cannot be null");
+        worker.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Error in task of partition {}: {}", index, e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Runs a task on the worker of this partition.
+     *
+     * @return A CompletableFuture that completes when the task is done.
+     */
+    public CompletableFuture<Void> submit(Runnable task) {
+        return CompletableFuture.runAsync(task, worker);
+    }
+
+    /**
+     * Runs a task that returns a value on the worker of this partition.
+     *
+     * @return A CompletableFuture that will complete with the result of the task.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, worker);
+    }
+
+    /**
+     * Checks whether the current thread is the worker of this partition.
+     */
+    public boolean isWorkerThread() {
+        return Thread.currentThread() == workerThread;
+    }
+
+    /**
+     * Closes the runtime of this partition, and stops its worker. Tasks that have not started yet
+     * are dropped.
+     */
+    @Override
+    public void close() {
+        runtime.close();
+        worker.shutdownNow();
+    }
+
+}
@@ -0,0 +1,102 @@
+package jsignals.runtime;
+
+import java.util.List;
+
+/**
+ * Splits reactive state into a fixed number of {@link Partition}s, each with its own graph and
+ * worker thread.
+ * <p>
+ * State that never interacts, e.g. the state of different users or documents, can live in
+ * different partitions, which then propagate in parallel without contending. A partition key pins
+ * a {@code Ref} and everything derived from it to one partition: create them through the runtime of
+ * {@link #partitionFor(Object)}, which always returns the same partition for equal keys.
+ * <pre>{@code
+ * try (PartitionedRuntime partitions = new PartitionedRuntime(4)) {
+ *     Partition partition = partitions.partitionFor(documentId);
+ *     Ref<String> text = partition.getRuntime().ref("");
+ *     ComputedRef<Integer> words = partition.getRuntime().computed(() -> countWords(text.get()));
+ *     partition.execute(() -> text.set(newText));
+ * }
+ * }</pre>
+ */
+public final class PartitionedRuntime implements AutoCloseable {
+
+    private final String name;
+
+    private final Partition[] partitions;
+
+    /**
+     * Creates one partition per available processor.
+     */
+    public PartitionedRuntime() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param partitionCount The number of partitions.
+     */
+    public PartitionedRuntime(int partitionCount) {
+        this(partitionCount, ExecutionPolicy.unbounded());
+    }
+
+    /**
+     * @param partitionCount  The number of partitions.
+     * @param executionPolicy How many tasks, like resource fetches, each partition runs at the same
+     *                        time.
+     */
+    public PartitionedRuntime(int partitionCount, ExecutionPolicy executionPolicy) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("At least one partition is required, got " + partitionCount);
+        }
+        this.name = JSignalsRuntime.nextName();
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(name + "-partition-" + i, i, executionPolicy);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Returns the partition with the given index.
+     *
+     * @param index The index of the partition, from 0 to {@link #getPartitionCount()} excluded.
+     */
+    public Partition partition(int index) {
+        return partitions[index];
+    }
+
+    /**
+     * Returns the partition a key is pinned to.
+     *
+     * @param key The partition key, e.g. the ID of the entity the state belongs to. May be
+     *            {@code null}.
+     */
+    public Partition partitionFor(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // Spread the high bits, as keys often differ in those only
+        hash ^= hash >>> 16;
+        return partitions[Math.floorMod(hash, partitions.length)];
+    }
+
+    public List<Partition> getPartitions() {
+        return List.of(partitions);
+    }
+
+    /**
+     * Closes all partitions.
+     */
+    @Override
+    public void close() {
+        for (Partition partition : partitions) {
+            partition.close();
+        }
+    }
+
+}
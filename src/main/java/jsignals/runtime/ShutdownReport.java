@@ -0,0 +1,25 @@
+package jsignals.runtime;
+
+import java.time.Duration;
+
+/**
+ * The outcome of a graceful shutdown with {@link JSignalsRuntime#close(Duration)}.
+ *
+ * @param runningAtStart Tasks, resource fetches and effects that were running when the shutdown
+ *                       started.
+ * @param queuedAtStart  Tasks, recomputations and effects that were waiting to run when the
+ *                       shutdown started.
+ * @param cancelled      Tasks, resource fetches, recomputations and effects that were still
+ *                       running or waiting when the timeout elapsed, and were cancelled.
+ * @param elapsed        How long the shutdown took.
+ */
+public record ShutdownReport(int runningAtStart, int queuedAtStart, int cancelled, Duration elapsed) {
+
+    /**
+     * Checks whether all work completed before the timeout, so that nothing had to be cancelled.
+     */
+    public boolean isGraceful() {
+        return cancelled == 0;
+    }
+
+}
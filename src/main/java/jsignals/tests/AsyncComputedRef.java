@@ -2,8 +2,8 @@ package jsignals.tests;
 
 import jsignals.core.Disposable;
 import jsignals.core.ReadableRef;
+import jsignals.core.SignalNode;
 import jsignals.runtime.DependencyTracker;
-import jsignals.runtime.DependencyTracker.Dependent;
 import jsignals.runtime.JSignalsExecutor;
 
 import java.util.Objects;
@@ -15,7 +15,7 @@ import java.util.function.Supplier;
 /**
  * Async computed value that properly tracks dependencies and re-executes when they change.
  */
-public abstract class AsyncComputedRef<T> implements ReadableRef<CompletableFuture<T>>, Dependent {
+public abstract class AsyncComputedRef<T> extends SignalNode implements ReadableRef<CompletableFuture<T>> {
 
     private final Supplier<CompletableFuture<T>> computation;
 
@@ -2,8 +2,8 @@ package jsignals.tests;
 
 import jsignals.core.Disposable;
 import jsignals.core.ReadableRef;
+import jsignals.core.SignalNode;
 import jsignals.runtime.DependencyTracker;
-import jsignals.runtime.DependencyTracker.Dependent;
 import jsignals.runtime.JSignalsExecutor;
 
 import java.util.concurrent.CompletableFuture;
@@ -16,7 +16,7 @@ import java.util.function.Supplier;
  * An async computed value that runs on virtual threads.
  * Automatically cancels and re-runs when dependencies change.
  */
-public abstract class ComputedAsync<T> implements ReadableRef<T>, Dependent {
+public abstract class ComputedAsync<T> extends SignalNode implements ReadableRef<T> {
 
     private final Supplier<CompletableFuture<T>> asyncComputation;
 
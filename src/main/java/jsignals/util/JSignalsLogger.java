@@ -8,9 +8,25 @@ import org.slf4j.LoggerFactory;
 /**
  * A utility class for managing logging within the JSignals library.
  * It provides a centralized way to obtain SLF4J loggers and configure the logging level.
+ * <p>
+ * Loggers are obtained once per class, never per instance. Logging on the hot paths of the engine
+ * (reads, writes, recomputations and propagation) is additionally guarded by {@link #TRACE} and
+ * {@link #DEBUG}. Both are constants read once at startup: when they are off, the JIT removes the
+ * guarded code, so no arguments are built and the logging backend is never consulted.
  */
 public final class JSignalsLogger {
 
+    /**
+     * Whether the hot paths log at trace level. Enabled with {@code -Djsignals.trace=true}.
+     */
+    public static final boolean TRACE = Boolean.getBoolean("jsignals.trace");
+
+    /**
+     * Whether the hot paths log at debug level. Enabled with {@code -Djsignals.debug=true},
+     * and implied by {@link #TRACE}.
+     */
+    public static final boolean DEBUG = TRACE || Boolean.getBoolean("jsignals.debug");
+
     private JSignalsLogger() { }
 
     /**
@@ -35,7 +51,8 @@ public final class JSignalsLogger {
 
     /**
      * Sets the global logging level for the entire JSignals library.
-     * This affects all loggers obtained through this utility.
+     * This affects all loggers obtained through this utility. Hot path logging must also be
+     * enabled with the {@code jsignals.trace} or {@code jsignals.debug} system property.
      *
      * @param level The desired logging level (e.g., Level.DEBUG, Level.INFO).
      */
@@ -130,4 +130,57 @@ public class EffectsTest {
                 """, log.toString(), "Logs should not change after disposal");
     }
 
+    @Test
+    void testDiamondEffectRunsOnce() {
+        Ref<Integer> source = ref(1);
+        ComputedRef<Integer> left = computed(() -> source.get() + 1);
+        ComputedRef<Integer> right = computed(() -> source.get() * 10);
+        ComputedRef<Integer> sum = computed(() -> left.get() + right.get());
+
+        StringBuilder effectLog = new StringBuilder();
+        Disposable effect = effect(() -> effectLog.append("Sum is: ").append(sum.get()).append("\n"));
+
+        source.set(2);
+        source.set(3);
+
+        assertEquals("""
+                Sum is: 12
+                Sum is: 23
+                Sum is: 34
+                """, effectLog.toString(), "Effect should run once per change and never see a torn state");
+
+        effect.dispose();
+    }
+
+    @Test
+    void testBatchCoalescesNotifications() {
+        Ref<String> firstName = ref("John");
+        Ref<String> lastName = ref("Doe");
+        ComputedRef<String> fullName = computed(() -> firstName.get() + " " + lastName.get());
+
+        StringBuilder log = new StringBuilder();
+        Disposable watcher = firstName.watch((oldValue, newValue) ->
+                log.append("First name: ").append(oldValue).append(" -> ").append(newValue).append("\n"));
+        Disposable effect = effect(() -> log.append("Full name is: ").append(fullName.get()).append("\n"));
+
+        batch(() -> {
+            firstName.set("Jane");
+            firstName.set("Janet");
+            batch(() -> lastName.set("Smith"));
+
+            // Writes are visible inside the batch, but nothing has been notified yet
+            assertEquals("Janet Smith", fullName.get());
+            assertEquals("Full name is: John Doe\n", log.toString());
+        });
+
+        assertEquals("""
+                Full name is: John Doe
+                First name: John -> Janet
+                Full name is: Janet Smith
+                """, log.toString(), "Subscribers and effects should be notified once per batch");
+
+        watcher.dispose();
+        effect.dispose();
+    }
+
 }
@@ -4,7 +4,15 @@ import jsignals.JSignals;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Tag("core")
 public class ComputedRefTest {
@@ -71,4 +79,180 @@ public class ComputedRefTest {
         assertEquals(20, doubled.get(), "Second access after change should use cached value");
     }
 
+    @Test
+    public void testDiamondRecomputesOnce() {
+        Ref<Integer> a = new Ref<>(1);
+        ComputedRef<Integer> b = new ComputedRef<>(() -> a.get() + 1);
+        ComputedRef<Integer> c = new ComputedRef<>(() -> a.get() * 2);
+        AtomicInteger runs = new AtomicInteger();
+        ComputedRef<String> d = new ComputedRef<>(() -> {
+            runs.incrementAndGet();
+            return b.get() + "/" + c.get();
+        });
+
+        assertEquals("2/2", d.get());
+        assertEquals(1, runs.get(), "Initial computation should run once");
+
+        a.set(5);
+        assertEquals("6/10", d.get(), "Diamond should see a consistent state");
+        assertEquals(2, runs.get(), "Diamond bottom should recompute exactly once per change");
+    }
+
+    @Test
+    public void testUnchangedIntermediateSkipsRecomputation() {
+        Ref<Integer> count = new Ref<>(1);
+        ComputedRef<Boolean> isPositive = new ComputedRef<>(() -> count.get() > 0);
+        AtomicInteger runs = new AtomicInteger();
+        ComputedRef<String> label = new ComputedRef<>(() -> {
+            runs.incrementAndGet();
+            return isPositive.get() ? "positive" : "negative";
+        });
+
+        assertEquals("positive", label.get());
+
+        count.set(2);
+        assertEquals("positive", label.get());
+        assertEquals(1, runs.get(), "Should not recompute when the intermediate value is unchanged");
+    }
+
+    @Test
+    public void testDependenciesFollowBranches() {
+        Ref<Boolean> useFirst = new Ref<>(true);
+        Ref<String> first = new Ref<>("first");
+        Ref<String> second = new Ref<>("second");
+        AtomicInteger runs = new AtomicInteger();
+        ComputedRef<String> value = new ComputedRef<>(() -> {
+            runs.incrementAndGet();
+            return useFirst.get() ? first.get() : second.get() + second.get();
+        });
+
+        assertEquals("first", value.get());
+        assertEquals(List.of(useFirst, first), value.getSources());
+
+        useFirst.set(false);
+        assertEquals("secondsecond", value.get());
+        assertEquals(List.of(useFirst, second), value.getSources(), "Repeated reads should be tracked once");
+        assertFalse(first.hasObservers(), "Unused branch should no longer be observed");
+
+        first.set("changed");
+        assertEquals("secondsecond", value.get());
+        assertEquals(2, runs.get(), "Changes to an unused branch should not recompute");
+
+        second.set("other");
+        assertEquals("otherother", value.get());
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    public void testReadDuringEvaluationDoesNotBlock() throws InterruptedException {
+        Ref<Integer> source = new Ref<>(1);
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ComputedRef<Integer> doubled = new ComputedRef<>(() -> {
+            int value = source.get() * 2;
+            if (Thread.currentThread().getName().equals("slow-evaluator")) {
+                evaluating.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return value;
+        });
+
+        source.set(2);
+        Thread slow = new Thread(doubled::get, "slow-evaluator");
+        slow.start();
+        evaluating.await();
+
+        assertTrue(doubled.isComputing());
+        assertEquals(4, doubled.get(), "Concurrent read should compute the value instead of waiting");
+
+        release.countDown();
+        slow.join();
+        assertFalse(doubled.isComputing());
+        assertFalse(doubled.isDirty());
+        assertEquals(4, doubled.get());
+    }
+
+    @Test
+    public void testRacingWritesMakeReaderWaitForEvaluation() throws InterruptedException {
+        Ref<Integer> source = new Ref<>(1);
+        Ref<Integer> noise = new Ref<>(0);
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger speculativeRuns = new AtomicInteger();
+        ComputedRef<Integer> doubled = new ComputedRef<>(() -> {
+            int value = source.get() * 2;
+            String thread = Thread.currentThread().getName();
+            if (thread.equals("slow-evaluator")) {
+                evaluating.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else if (evaluating.getCount() == 0) {
+                // A write races with every speculative run, so none of them is consistent
+                int runs = speculativeRuns.incrementAndGet();
+                noise.set(runs);
+                if (runs == ComputedNode.MAX_SPECULATIVE_ATTEMPTS) {
+                    release.countDown();
+                }
+                return -1;
+            }
+            return value;
+        });
+
+        source.set(2);
+        Thread slow = new Thread(doubled::get, "slow-evaluator");
+        slow.start();
+        evaluating.await();
+
+        assertEquals(4, doubled.get(), "A torn speculative result should never be returned");
+        assertEquals(ComputedNode.MAX_SPECULATIVE_ATTEMPTS, speculativeRuns.get());
+        slow.join();
+    }
+
+    @Test
+    public void testCycleIsDetectedWhileAnotherThreadEvaluates() throws InterruptedException {
+        Ref<Boolean> cyclic = new Ref<>(false);
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<ComputedRef<Integer>> self = new ArrayList<>();
+        ComputedRef<Integer> counter = new ComputedRef<>(() -> {
+            if (!cyclic.get()) {
+                return 0;
+            }
+            if (Thread.currentThread().getName().equals("slow-evaluator")) {
+                evaluating.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return self.getFirst().get() + 1;
+        });
+        self.add(counter);
+
+        cyclic.set(true);
+        AtomicInteger slowFailures = new AtomicInteger();
+        Thread slow = new Thread(() -> {
+            try {
+                counter.get();
+            } catch (IllegalStateException e) {
+                slowFailures.incrementAndGet();
+            }
+        }, "slow-evaluator");
+        slow.start();
+        evaluating.await();
+
+        assertThrows(IllegalStateException.class, counter::get, "The cycle should be reported, not overflow the stack");
+        release.countDown();
+        slow.join();
+        assertEquals(1, slowFailures.get());
+    }
+
 }
@@ -0,0 +1,91 @@
+package jsignals.core;
+
+import jsignals.JSignals;
+import jsignals.runtime.JSignalsRuntime;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static jsignals.core.Dependencies.on;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class DependenciesTest {
+
+    @Test
+    public void testUntrackedReadDoesNotCreateEdge() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            Ref<String> label = runtime.ref("count");
+            List<String> logged = new ArrayList<>();
+
+            runtime.effect(() -> {
+                int value = count.get();
+                logged.add(runtime.untrack(label::get) + "=" + value);
+            });
+
+            label.set("total");
+            count.set(1);
+
+            assertEquals(List.of("count=0", "total=1"), logged);
+        }
+    }
+
+    @Test
+    public void testStaticComputedRerunsOnDeclaredSourcesOnly() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> a = runtime.ref(1);
+            Ref<Integer> b = runtime.ref(2);
+            Ref<Integer> factor = runtime.ref(10);
+            AtomicInteger runs = new AtomicInteger();
+
+            ComputedRef<Integer> sum = runtime.computed(on(a, b), () -> {
+                runs.incrementAndGet();
+                return (a.get() + b.get()) * factor.get();
+            });
+            assertEquals(30, sum.get());
+            assertTrue(sum.hasStaticSources());
+
+            factor.set(100);
+            assertEquals(30, sum.get(), "Undeclared sources should not make it re-run");
+
+            b.set(3);
+            assertEquals(400, sum.get());
+            assertEquals(2, runs.get());
+        }
+    }
+
+    @Test
+    public void testStaticEffectAndDownstreamComputed() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            ComputedRef<Integer> doubled = runtime.computed(on(count), () -> count.get() * 2);
+            List<Integer> seen = new ArrayList<>();
+
+            runtime.effect(on(doubled), () -> seen.add(doubled.get()));
+
+            count.set(1);
+            count.set(2);
+
+            assertEquals(List.of(0, 2, 4), seen);
+        }
+    }
+
+    @Test
+    public void testDependenciesMustBelongToTheSameGraph() {
+        try (JSignalsRuntime first = new JSignalsRuntime(); JSignalsRuntime second = new JSignalsRuntime()) {
+            Ref<Integer> a = first.ref(0);
+            Ref<Integer> b = second.ref(0);
+
+            assertThrows(IllegalArgumentException.class, () -> on(a, b));
+            assertThrows(IllegalArgumentException.class, () -> second.effect(on(a), a::get));
+            assertThrows(IllegalArgumentException.class, () -> JSignals.on(new ListRef<>()));
+        }
+    }
+
+}
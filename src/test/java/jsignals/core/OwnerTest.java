@@ -0,0 +1,140 @@
+package jsignals.core;
+
+import jsignals.JSignals;
+import jsignals.runtime.JSignalsRuntime;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class OwnerTest {
+
+    @Test
+    public void testDisposingRootDisposesWhatItOwns() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            AtomicInteger effectRuns = new AtomicInteger();
+            List<Integer> watched = new ArrayList<>();
+
+            Owner scope = JSignals.root(owner -> {
+                assertSame(owner, Owner.current());
+                runtime.effect(() -> {
+                    count.get();
+                    effectRuns.incrementAndGet();
+                });
+                count.watch((Integer value) -> watched.add(value));
+            });
+            assertNull(Owner.current());
+
+            count.set(1);
+            scope.dispose();
+            count.set(2);
+
+            assertEquals(2, effectRuns.get());
+            assertEquals(List.of(1), watched);
+            assertTrue(scope.isDisposed());
+        }
+    }
+
+    @Test
+    public void testEffectDisposesChildrenBeforeRerun() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> outer = runtime.ref(0);
+            Ref<Integer> inner = runtime.ref(0);
+            AtomicInteger innerRuns = new AtomicInteger();
+            List<String> cleanups = new ArrayList<>();
+
+            Owner scope = JSignals.root(_ -> runtime.effect(() -> {
+                int generation = outer.get();
+                JSignals.onCleanup(() -> cleanups.add("outer " + generation));
+                runtime.effect(() -> {
+                    inner.get();
+                    innerRuns.incrementAndGet();
+                });
+            }));
+
+            outer.set(1);
+            outer.set(2);
+            innerRuns.set(0);
+            inner.set(1);
+
+            assertEquals(1, innerRuns.get(), "Only the inner effect of the last run should be alive");
+            assertEquals(List.of("outer 0", "outer 1"), cleanups);
+
+            scope.dispose();
+            inner.set(2);
+
+            assertEquals(1, innerRuns.get());
+            assertEquals(List.of("outer 0", "outer 1", "outer 2"), cleanups);
+        }
+    }
+
+    @Test
+    public void testComputedOwnsWhatItCreates() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            List<Integer> cleanups = new ArrayList<>();
+            ComputedRef<Integer> doubled = runtime.computed(() -> {
+                int value = count.get();
+                JSignals.onCleanup(() -> cleanups.add(value));
+                return value * 2;
+            });
+
+            count.set(1);
+            assertEquals(2, doubled.get());
+            doubled.dispose();
+
+            assertEquals(List.of(0, 1), cleanups);
+            assertTrue(doubled.isDisposed());
+        }
+    }
+
+    @Test
+    public void testNestedRootsAreDisposedWithParent() {
+        List<String> cleanups = new ArrayList<>();
+        Owner session = JSignals.root(_ -> {
+            JSignals.onCleanup(() -> cleanups.add("session"));
+            JSignals.root(_ -> JSignals.onCleanup(() -> cleanups.add("screen")));
+        });
+
+        session.dispose();
+
+        assertEquals(List.of("screen", "session"), cleanups);
+    }
+
+    @Test
+    public void testDisposedChildrenAreDroppedRightAway() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            List<Disposable> children = new ArrayList<>();
+            List<String> cleanups = new ArrayList<>();
+
+            Owner session = JSignals.root(_ -> {
+                for (int i = 0; i < 100; i++) {
+                    children.add(runtime.effect(count::get));
+                    children.add(runtime.computed(count::get));
+                    children.add(count.watch((Integer value) -> { }));
+                    children.add(JSignals.root(_ -> { }));
+                }
+                JSignals.onCleanup(() -> cleanups.add("session"));
+            });
+            assertEquals(401, session.ownedCount());
+
+            children.forEach(Disposable::dispose);
+            assertEquals(1, session.ownedCount(), "Only the cleanup hook should be left");
+
+            session.dispose();
+            assertEquals(List.of("session"), cleanups);
+            assertEquals(0, session.ownedCount());
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package jsignals.core;
+
+import jsignals.JSignals;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class PrimitiveRefTest {
+
+    @Test
+    public void testIntRefSetAndUpdate() {
+        IntRef count = new IntRef(1);
+        List<String> changes = new ArrayList<>();
+        count.watch((oldValue, newValue) -> changes.add(oldValue + "->" + newValue));
+
+        count.set(2);
+        count.set(2);
+        count.update(value -> value * 10);
+
+        assertEquals(20, count.getValue());
+        assertEquals(List.of("1->2", "2->20"), changes, "Writes of the same value should not notify");
+    }
+
+    @Test
+    public void testComputedIntFollowsSources() {
+        IntRef width = new IntRef(2);
+        IntRef height = new IntRef(3);
+        AtomicInteger runs = new AtomicInteger();
+        ComputedIntRef area = new ComputedIntRef(() -> {
+            runs.incrementAndGet();
+            return width.get() * height.get();
+        });
+
+        assertEquals(6, area.get());
+
+        width.set(4);
+        assertEquals(12, area.get());
+        assertEquals(2, runs.get());
+
+        // 4 * 3 and 6 * 2 have the same area, so dependents of the area should not re-run
+        ComputedRef<String> label = new ComputedRef<>(() -> "area " + area.get());
+        JSignals.batch(() -> {
+            width.set(6);
+            height.set(2);
+        });
+        assertEquals("area 12", label.get());
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    public void testDoubleAndLongRefs() {
+        DoubleRef celsius = new DoubleRef(20.0);
+        ComputedDoubleRef fahrenheit = new ComputedDoubleRef(() -> celsius.get() * 9 / 5 + 32);
+        LongRef total = new LongRef();
+        ComputedLongRef doubled = new ComputedLongRef(() -> total.get() * 2);
+        List<Double> seen = new ArrayList<>();
+        fahrenheit.watch((double value) -> seen.add(value));
+
+        celsius.set(100.0);
+        total.update(value -> value + 21);
+
+        assertEquals(212.0, fahrenheit.get());
+        assertEquals(List.of(212.0), seen);
+        assertEquals(42L, doubled.get());
+    }
+
+    @Test
+    public void testBooleanRefToggle() {
+        BooleanRef enabled = new BooleanRef();
+        ComputedBooleanRef disabled = new ComputedBooleanRef(() -> !enabled.get());
+        List<String> changes = new ArrayList<>();
+        enabled.watch((oldValue, newValue) -> changes.add(oldValue + "->" + newValue));
+
+        enabled.toggle();
+
+        assertTrue(enabled.getValue());
+        assertFalse(disabled.get());
+        assertEquals(List.of("false->true"), changes);
+    }
+
+}
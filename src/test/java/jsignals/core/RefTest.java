@@ -5,9 +5,13 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Basic test for Ref implementation
@@ -69,4 +73,67 @@ public class RefTest {
         assertEquals(0, notificationCount.get(), "Should not notify on same value");
     }
 
+    @Test
+    void testIdentityEquality() {
+        Ref<List<Integer>> rows = new Ref<>(List.of(1, 2, 3), Equality.identity());
+        AtomicInteger notificationCount = new AtomicInteger();
+        rows.watch(v -> notificationCount.getAndIncrement());
+
+        rows.set(rows.getValue()); // Same instance
+        assertEquals(0, notificationCount.get(), "Should not notify on the same instance");
+
+        rows.set(List.of(1, 2, 3)); // Equal, but a different instance
+        assertEquals(1, notificationCount.get(), "Should notify on a different instance");
+    }
+
+    @Test
+    void testNeverEquality() {
+        Ref<String> text = new Ref<>("hello", Equality.never());
+        AtomicInteger notificationCount = new AtomicInteger();
+        text.watch(v -> notificationCount.getAndIncrement());
+
+        text.set("hello");
+        text.update(v -> v);
+        assertEquals(2, notificationCount.get(), "Should notify on every write");
+    }
+
+    @Test
+    void testCustomEquality() {
+        Ref<String> text = new Ref<>("hello", Equality.of(String::equalsIgnoreCase));
+        AtomicInteger notificationCount = new AtomicInteger();
+        text.watch(v -> notificationCount.getAndIncrement());
+
+        text.set("HELLO");
+        assertEquals(0, notificationCount.get(), "Should not notify when the predicate matches");
+        assertEquals("HELLO", text.getValue(), "The write should still be applied");
+    }
+
+    @Test
+    void testConcurrentWriteIsNotifiedByTheNotifyingThread() throws InterruptedException {
+        Ref<Integer> count = new Ref<>(0);
+        CountDownLatch notifying = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        List<String> seen = new CopyOnWriteArrayList<>();
+        count.watch((oldValue, newValue) -> {
+            seen.add(oldValue + "->" + newValue);
+            if (newValue == 1) {
+                notifying.countDown();
+                try {
+                    written.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        Thread writer = new Thread(() -> count.set(1));
+        writer.start();
+        assertTrue(notifying.await(5, TimeUnit.SECONDS));
+        count.set(2);
+        written.countDown();
+        writer.join(5_000);
+
+        assertEquals(List.of("0->1", "1->2"), seen, "The second write should be notified after the first");
+    }
+
 }
@@ -0,0 +1,60 @@
+package jsignals.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import jsignals.core.ComputedRef;
+import jsignals.core.Ref;
+import jsignals.runtime.JSignalsRuntime;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class JfrEventsTest {
+
+    @Test
+    public void testEventsAreRecordedWhenEnabled() throws Exception {
+        Path file = Files.createTempFile("jsignals", ".jfr");
+        try (JSignalsRuntime runtime = new JSignalsRuntime(); Recording recording = new Recording()) {
+            recording.enable("jsignals.RefSet");
+            recording.enable("jsignals.Recompute");
+            recording.enable("jsignals.EffectRun");
+            recording.enable("jsignals.Propagation");
+            recording.start();
+
+            Ref<Integer> count = runtime.ref(1);
+            ComputedRef<Integer> parity = runtime.computed(() -> count.get() % 2);
+            runtime.effect(() -> parity.get());
+            count.set(2);
+            count.set(4);
+
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            List<RecordedEvent> recomputes = ofType(events, "jsignals.Recompute");
+
+            assertEquals(2, ofType(events, "jsignals.RefSet").size());
+            assertEquals(3, recomputes.size());
+            assertTrue(recomputes.get(1).getBoolean("changed"), "1 % 2 -> 2 % 2 is a change");
+            assertFalse(recomputes.get(2).getBoolean("changed"), "2 % 2 -> 4 % 2 is not a change");
+            assertEquals(2, ofType(events, "jsignals.EffectRun").size());
+            assertEquals(2, ofType(events, "jsignals.Propagation").size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+    }
+
+}
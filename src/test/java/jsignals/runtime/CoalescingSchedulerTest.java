@@ -0,0 +1,62 @@
+package jsignals.runtime;
+
+import jsignals.core.ComputedRef;
+import jsignals.core.Ref;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class CoalescingSchedulerTest {
+
+    @Test
+    public void testBurstOfWritesStartsFewWorkers() throws InterruptedException {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            JSignalsMetrics metrics = runtime.enableMetrics();
+            Ref<Integer> count = runtime.ref(0);
+            ComputedRef<Integer> doubled = runtime.computed(() -> count.get() * 2);
+            CountDownLatch done = new CountDownLatch(1);
+            doubled.watch(value -> {
+                if (value == 20_000) {
+                    done.countDown();
+                }
+            });
+
+            for (int i = 1; i <= 10_000; i++) {
+                count.set(i);
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS), "The last write should be recomputed");
+            assertEquals(20_000, doubled.get());
+            assertTrue(metrics.getThreadsSpawned() < 1_000,
+                    "Expected far fewer threads than writes, got " + metrics.getThreadsSpawned());
+        }
+    }
+
+    @Test
+    public void testWorkersAreBounded() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CoalescingScheduler scheduler = new CoalescingScheduler(task -> Thread.ofVirtual().start(task), 2);
+        CountDownLatch done = new CountDownLatch(100);
+
+        for (int i = 0; i < 100; i++) {
+            scheduler.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.onSpinWait();
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(maxRunning.get() <= 2, "At most two tasks should run at once, saw " + maxRunning.get());
+    }
+
+}
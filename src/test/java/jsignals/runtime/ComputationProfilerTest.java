@@ -0,0 +1,66 @@
+package jsignals.runtime;
+
+import jsignals.core.ComputedRef;
+import jsignals.core.Ref;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class ComputationProfilerTest {
+
+    @Test
+    public void testEverySampledRunIsCounted() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            ComputationProfiler profiler = runtime.getProfiler();
+            profiler.enable(1.0);
+
+            Ref<Integer> source = runtime.ref(1);
+            ComputedRef<Integer> eager = runtime.computed(() -> source.get() + 1);
+            ComputedRef<Integer> lazy = runtime.computed(() -> source.get() * 2);
+            eager.setDebugLabel("eager");
+            lazy.setDebugLabel("lazy");
+            runtime.effect(() -> eager.get());
+
+            // The eager value re-runs for every write, the lazy one only when it is read
+            source.set(2);
+            source.set(3);
+            lazy.get();
+
+            List<ComputationProfiler.Entry> top = profiler.topN(10);
+            assertEquals(3, top.size());
+            assertEquals(2, profiler.topN(2).size());
+            Map<String, ComputationProfiler.Entry> byLabel = new HashMap<>();
+            for (ComputationProfiler.Entry entry : top) {
+                byLabel.put(entry.label(), entry);
+                assertTrue(entry.p50Nanos() <= entry.p99Nanos());
+                assertTrue(entry.p99Nanos() <= entry.maxNanos());
+            }
+            assertEquals(3, byLabel.get("eager").count());
+            assertEquals(2, byLabel.get("lazy").count());
+        }
+    }
+
+    @Test
+    public void testDisabledProfilerSamplesNothing() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> source = runtime.ref(1);
+            ComputedRef<Integer> doubled = runtime.computed(() -> source.get() * 2);
+            source.set(2);
+            doubled.get();
+
+            assertNull(doubled.getProfile());
+            assertTrue(runtime.getProfiler().topN(10).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> runtime.getProfiler().enable(2));
+        }
+    }
+
+}
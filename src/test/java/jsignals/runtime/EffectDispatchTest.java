@@ -0,0 +1,107 @@
+package jsignals.runtime;
+
+import jsignals.core.Ref;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class EffectDispatchTest {
+
+    @Test
+    public void testWriteDoesNotWaitForDedicatedThread() throws InterruptedException {
+        try (JSignalsRuntime runtime = new JSignalsRuntime(EffectDispatch.DEDICATED_THREAD)) {
+            Ref<Integer> count = runtime.ref(0);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            List<String> threads = new CopyOnWriteArrayList<>();
+            runtime.effect(() -> {
+                if (count.get() > 0) {
+                    threads.add(Thread.currentThread().getName());
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+
+            long start = System.nanoTime();
+            count.set(1);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(started.await(5, TimeUnit.SECONDS), "The effect thread should run the effect");
+            release.countDown();
+            runtime.flush();
+
+            assertTrue(elapsedMillis < 1_000, "The write should not wait for the effect");
+            assertEquals(List.of("jsignals-effects"), threads);
+        }
+    }
+
+    @Test
+    public void testFlushRunsQueuedEffectsOnce() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime(EffectDispatch.DEDICATED_THREAD)) {
+            Ref<Integer> count = runtime.ref(0);
+            AtomicInteger runs = new AtomicInteger();
+            List<Integer> seen = new CopyOnWriteArrayList<>();
+            CountDownLatch running = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Ref<Boolean> blocker = runtime.ref(false);
+            runtime.effect(() -> {
+                if (blocker.get()) {
+                    running.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            runtime.effect(() -> {
+                runs.incrementAndGet();
+                seen.add(count.get());
+            });
+
+            // Keep the effect thread busy, so the writes below only queue the effect
+            blocker.set(true);
+            try {
+                assertTrue(running.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            for (int i = 1; i <= 100; i++) {
+                count.set(i);
+            }
+            release.countDown();
+            runtime.flush();
+
+            assertEquals(2, runs.get(), "The burst should re-run the effect once");
+            assertEquals(List.of(0, 100), seen);
+        }
+    }
+
+    @Test
+    public void testInlineEffectsRunBeforeWriteReturns() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            AtomicInteger last = new AtomicInteger(-1);
+            runtime.effect(() -> last.set(count.get()));
+
+            count.set(5);
+            assertEquals(5, last.get());
+
+            runtime.flush();
+            assertEquals(5, last.get());
+        }
+    }
+
+}
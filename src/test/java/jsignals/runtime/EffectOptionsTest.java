@@ -0,0 +1,139 @@
+package jsignals.runtime;
+
+import jsignals.core.ComputedRef;
+import jsignals.core.Ref;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class EffectOptionsTest {
+
+    @Test
+    public void testAsyncEffectRunsOnAnotherThread() throws InterruptedException {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            List<Thread> threads = new CopyOnWriteArrayList<>();
+            CountDownLatch rerun = new CountDownLatch(1);
+            runtime.effect(() -> {
+                if (count.get() > 0) {
+                    threads.add(Thread.currentThread());
+                    rerun.countDown();
+                }
+            }, EffectOptions.async());
+
+            count.set(1);
+
+            assertTrue(rerun.await(5, TimeUnit.SECONDS));
+            assertNotEquals(Thread.currentThread(), threads.getFirst());
+        }
+    }
+
+    @Test
+    public void testDebouncedEffectRunsOnceAfterBurst() throws InterruptedException {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            // Stale from the first write of the burst until the effect runs
+            ComputedRef<Integer> doubled = runtime.computed(() -> count.get() * 2);
+            List<Integer> seen = new CopyOnWriteArrayList<>();
+            CountDownLatch rerun = new CountDownLatch(1);
+            runtime.effect(() -> {
+                seen.add(doubled.get());
+                if (doubled.get() == 80) {
+                    rerun.countDown();
+                }
+            }, EffectOptions.debounced(Duration.ofMillis(50)));
+
+            // A write every 5 ms for 200 ms, so the burst spans several debounce intervals
+            for (int i = 1; i <= 40; i++) {
+                count.set(i);
+                Thread.sleep(5);
+            }
+
+            assertTrue(rerun.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            assertEquals(List.of(0, 80), seen, "Every write should reset the debounce timer");
+        }
+    }
+
+    @Test
+    public void testThrottledEffectIsSpacedOut() throws InterruptedException {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            List<Long> starts = new CopyOnWriteArrayList<>();
+            CountDownLatch last = new CountDownLatch(1);
+            runtime.effect(() -> {
+                starts.add(System.nanoTime());
+                if (count.get() == 200) {
+                    last.countDown();
+                }
+            }, EffectOptions.throttled(Duration.ofMillis(20)));
+
+            for (int i = 1; i <= 200; i++) {
+                count.set(i);
+                Thread.sleep(0, 500_000);
+            }
+
+            assertTrue(last.await(5, TimeUnit.SECONDS), "The last value should be applied");
+            assertTrue(starts.size() < 50, "Expected far fewer runs than writes, got " + starts.size());
+            for (int i = 1; i < starts.size(); i++) {
+                long spacing = starts.get(i) - starts.get(i - 1);
+                assertTrue(spacing >= TimeUnit.MILLISECONDS.toNanos(20), "Runs " + spacing + " ns apart");
+            }
+        }
+    }
+
+    @Test
+    public void testFrameCoalescedEffectsRunTogether() throws InterruptedException {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            AtomicInteger firstRuns = new AtomicInteger();
+            AtomicInteger secondRuns = new AtomicInteger();
+            List<Thread> threads = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(2);
+            Duration frame = Duration.ofMillis(16);
+            runtime.effect(() -> {
+                firstRuns.incrementAndGet();
+                if (count.get() == 1_000) {
+                    threads.add(Thread.currentThread());
+                    done.countDown();
+                }
+            }, EffectOptions.frameCoalesced(frame));
+            runtime.effect(() -> {
+                secondRuns.incrementAndGet();
+                if (count.get() == 1_000) {
+                    threads.add(Thread.currentThread());
+                    done.countDown();
+                }
+            }, EffectOptions.frameCoalesced(frame));
+
+            for (int i = 1; i <= 1_000; i++) {
+                count.set(i);
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            // The initial runs, plus one per frame the writes spanned
+            assertTrue(firstRuns.get() <= 4, "Expected a run per frame, got " + firstRuns.get());
+            assertTrue(secondRuns.get() <= 4, "Expected a run per frame, got " + secondRuns.get());
+            assertEquals(threads.get(0), threads.get(1), "Effects of a frame should run together");
+        }
+    }
+
+    @Test
+    public void testIntervalIsValidated() {
+        assertThrows(IllegalArgumentException.class, () -> EffectOptions.throttled(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> EffectOptions.debounced(Duration.ofMillis(-1)));
+    }
+
+}
@@ -0,0 +1,83 @@
+package jsignals.runtime;
+
+import jsignals.core.Ref;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class EffectRunnerTest {
+
+    @Test
+    public void testChangesWhileRunningCollapseIntoOneRerun() throws InterruptedException {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            List<Integer> seen = new CopyOnWriteArrayList<>();
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+
+            runtime.effect(() -> {
+                int value = count.get();
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                if (value == 1) {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                seen.add(value);
+                running.decrementAndGet();
+            });
+
+            Thread writer = Thread.ofVirtual().start(() -> count.set(1));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // These writes return right away, as the effect is running on the other thread
+            for (int i = 2; i <= 10; i++) {
+                count.set(i);
+            }
+            release.countDown();
+            writer.join(5_000);
+
+            assertEquals(1, maxRunning.get(), "The effect should never run concurrently with itself");
+            assertEquals(List.of(0, 1, 10), seen);
+        }
+    }
+
+    @Test
+    public void testFailedRunDoesNotBlockLaterRuns() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(0);
+            List<Integer> seen = new CopyOnWriteArrayList<>();
+            runtime.effect(() -> {
+                int value = count.get();
+                if (value == 1) {
+                    throw new IllegalStateException("Failing on purpose");
+                }
+                seen.add(value);
+            });
+
+            try {
+                count.set(1);
+            } catch (RuntimeException e) {
+                // Reported to the writer, or logged by the tracker
+            }
+            count.set(2);
+
+            assertEquals(List.of(0, 2), seen);
+        }
+    }
+
+}
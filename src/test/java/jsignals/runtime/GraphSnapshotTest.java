@@ -0,0 +1,60 @@
+package jsignals.runtime;
+
+import jsignals.core.ComputedRef;
+import jsignals.core.Ref;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class GraphSnapshotTest {
+
+    @Test
+    public void testSnapshotOfDiamond() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> a = runtime.ref(1);
+            ComputedRef<Integer> b = runtime.computed(() -> a.get() + 1);
+            ComputedRef<Integer> c = runtime.computed(() -> a.get() * 2);
+            ComputedRef<Integer> d = runtime.computed(() -> b.get() + c.get());
+            Ref<String> unused = runtime.ref("unused");
+
+            a.set(2);
+            assertEquals(7, d.get());
+
+            GraphSnapshot snapshot = runtime.snapshot();
+
+            assertEquals(5, snapshot.nodeCount());
+            assertEquals(4, snapshot.edgeCount());
+            assertEquals(Map.of("ComputedRef", 3, "Ref", 2), snapshot.countsByType());
+            assertEquals(2, snapshot.maxFanIn());
+            assertEquals(2, snapshot.maxFanOut());
+            assertEquals(3, snapshot.depth());
+            assertEquals(1, snapshot.orphans().size());
+            assertEquals(unused.getName(), snapshot.orphans().getFirst().name());
+            assertEquals(2, snapshot.hottest(1).getFirst().computeCount());
+        }
+    }
+
+    @Test
+    public void testExportToDotAndJson() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> a = runtime.ref(1);
+            ComputedRef<Integer> b = runtime.computed(() -> a.get() + 1);
+
+            GraphSnapshot snapshot = runtime.snapshot();
+            String dot = snapshot.toDot();
+            String json = snapshot.toJson();
+
+            assertTrue(dot.startsWith("digraph jsignals {"));
+            assertTrue(dot.contains("n0 -> n1;"), dot);
+            assertTrue(dot.contains(b.getName()));
+            assertTrue(json.startsWith("{\"nodeCount\":2,\"edgeCount\":1,"), json);
+            assertTrue(json.contains("\"edges\":[{\"source\":0,\"observer\":1}]"), json);
+        }
+    }
+
+}
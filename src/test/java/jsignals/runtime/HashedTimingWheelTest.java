@@ -0,0 +1,117 @@
+package jsignals.runtime;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class HashedTimingWheelTest {
+
+    @Test
+    public void testTasksRunAfterTheirDelayInOrder() throws InterruptedException {
+        // A small wheel, so the longer delays take several turns
+        try (HashedTimingWheel wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 4, "test-timer")) {
+            List<Integer> order = new CopyOnWriteArrayList<>();
+            List<Long> early = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(5);
+            long start = System.nanoTime();
+            for (int delay : new int[]{ 30, 5, 20, 1, 10 }) {
+                wheel.schedule(() -> {
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    if (elapsed < delay) {
+                        early.add(elapsed);
+                    }
+                    order.add(delay);
+                    done.countDown();
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(1, 5, 10, 20, 30), order);
+            assertTrue(early.isEmpty(), "No task should run early: " + early);
+        }
+    }
+
+    @Test
+    public void testCancelledTasksDoNotRun() throws Exception {
+        try (HashedTimingWheel wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 512, "test-timer")) {
+            AtomicInteger runs = new AtomicInteger();
+            List<ScheduledFuture<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                futures.add(wheel.schedule(runs::incrementAndGet, 1, TimeUnit.SECONDS));
+            }
+            for (ScheduledFuture<?> future : futures) {
+                assertTrue(future.cancel(false));
+            }
+            ScheduledFuture<?> last = wheel.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+
+            last.get(5, TimeUnit.SECONDS);
+            assertEquals(1, runs.get());
+            assertTrue(futures.getFirst().isCancelled());
+        }
+    }
+
+    @Test
+    public void testCancelAll() throws Exception {
+        try (HashedTimingWheel wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 512, "test-timer")) {
+            AtomicInteger runs = new AtomicInteger();
+            ScheduledFuture<?> pending = wheel.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+
+            wheel.cancelAll();
+            ScheduledFuture<?> later = wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+            later.get(5, TimeUnit.SECONDS);
+
+            assertTrue(pending.isCancelled());
+            assertFalse(later.isCancelled());
+            assertEquals(1, runs.get());
+        }
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStopTheWheel() throws Exception {
+        try (HashedTimingWheel wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 16, "test-timer")) {
+            ScheduledFuture<?> failing = wheel.schedule(() -> {
+                throw new IllegalStateException("Failing on purpose");
+            }, 1, TimeUnit.MILLISECONDS);
+            ScheduledFuture<?> next = wheel.schedule(() -> { }, 5, TimeUnit.MILLISECONDS);
+
+            next.get(5, TimeUnit.SECONDS);
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testPostponedTaskRunsOnceAtItsNewDeadline() throws Exception {
+        try (HashedTimingWheel wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 8, "test-timer")) {
+            AtomicInteger runs = new AtomicInteger();
+            long start = System.nanoTime();
+            ScheduledFuture<?> timer = wheel.schedule(runs::incrementAndGet, 10, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < 5; i++) {
+                Thread.sleep(5);
+                // Moved further than a turn of the small wheel, into the bucket it was linked into
+                assertTrue(wheel.postpone(timer, 16, TimeUnit.MILLISECONDS));
+            }
+
+            timer.get(5, TimeUnit.SECONDS);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals(1, runs.get());
+            assertTrue(elapsed >= 25 + 16, "Should run after the last postponement, ran after " + elapsed + " ms");
+            assertFalse(wheel.postpone(timer, 10, TimeUnit.MILLISECONDS), "A completed task cannot be postponed");
+        }
+    }
+
+}
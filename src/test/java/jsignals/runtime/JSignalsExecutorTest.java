@@ -0,0 +1,143 @@
+package jsignals.runtime;
+
+import jsignals.runtime.ExecutionPolicy.Overflow;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class JSignalsExecutorTest {
+
+    @Test
+    public void testBoundedConcurrency() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(50);
+        try (JSignalsRuntime runtime = new JSignalsRuntime(
+                ExecutionPolicy.bounded(3, 100, Overflow.REJECT), EffectDispatch.INLINE)) {
+            for (int i = 0; i < 50; i++) {
+                runtime.getExecutor().submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(2);
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(maxRunning.get() <= 3, "At most 3 tasks should run at once, got " + maxRunning.get());
+        }
+    }
+
+    @Test
+    public void testOverflowPolicies() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocker = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (JSignalsExecutor rejecting = new JSignalsExecutor(new JSignalsMetrics(),
+                ExecutionPolicy.bounded(1, 1, Overflow.REJECT))) {
+            rejecting.execute(blocker);
+            rejecting.execute(blocker);
+            assertThrows(RejectedExecutionException.class, () -> rejecting.execute(blocker));
+        }
+
+        try (JSignalsExecutor callerRuns = new JSignalsExecutor(new JSignalsMetrics(),
+                ExecutionPolicy.bounded(1, 1, Overflow.CALLER_RUNS))) {
+            callerRuns.execute(blocker);
+            callerRuns.execute(blocker);
+            Thread caller = Thread.currentThread();
+            CompletableFuture<Thread> ranOn = callerRuns.submit(Thread::currentThread);
+            assertEquals(caller, ranOn.get());
+        }
+
+        try (JSignalsExecutor dropping = new JSignalsExecutor(new JSignalsMetrics(),
+                ExecutionPolicy.bounded(1, 1, Overflow.DROP_OLDEST))) {
+            dropping.execute(blocker);
+            CompletableFuture<Integer> oldest = dropping.submit(() -> 1);
+            CompletableFuture<Integer> newest = dropping.submit(() -> 2);
+            release.countDown();
+
+            ExecutionException dropped = assertThrows(ExecutionException.class, oldest::get);
+            assertTrue(dropped.getCause() instanceof RejectedExecutionException);
+            assertEquals(2, newest.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testCancelAll() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (JSignalsExecutor executor = new JSignalsExecutor(new JSignalsMetrics(),
+                ExecutionPolicy.bounded(1, 10, Overflow.REJECT))) {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            });
+            CompletableFuture<Void> queued = executor.submit(() -> { });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            executor.cancelAll();
+
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS), "The running task should be interrupted");
+            assertTrue(queued.isCompletedExceptionally());
+            assertThrows(CancellationException.class, queued::join);
+        }
+    }
+
+    @Test
+    public void testDelayedTaskNeverRunsOnTheTimerUnderSaturation() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocker = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        for (Overflow overflow : new Overflow[]{ Overflow.CALLER_RUNS, Overflow.REJECT }) {
+            try (JSignalsExecutor executor = new JSignalsExecutor(new JSignalsMetrics(),
+                    ExecutionPolicy.bounded(1, 1, overflow))) {
+                executor.execute(blocker);
+                executor.execute(blocker);
+                CompletableFuture<Thread> ranOn = new CompletableFuture<>();
+                executor.schedule(() -> ranOn.complete(Thread.currentThread()), 5, TimeUnit.MILLISECONDS);
+
+                // Runs while the running and queued tasks are still blocked
+                Thread thread = ranOn.get(5, TimeUnit.SECONDS);
+                assertTrue(thread.isVirtual(), overflow + ": should run on a thread of its own, ran on " + thread.getName());
+            }
+        }
+        release.countDown();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package jsignals.runtime;
+
+import jsignals.core.ComputedRef;
+import jsignals.core.Ref;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class JSignalsMetricsTest {
+
+    @Test
+    public void testMetricsAreOnlyRecordedWhenEnabled() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(1);
+            count.set(2);
+
+            JSignalsMetrics metrics = runtime.getMetrics();
+            assertFalse(metrics.isEnabled());
+            assertEquals(0, metrics.getRefWrites());
+        }
+    }
+
+    @Test
+    public void testCountersFollowTheGraph() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            JSignalsMetrics metrics = runtime.enableMetrics();
+            Ref<Integer> count = runtime.ref(1);
+            ComputedRef<Integer> doubled = runtime.computed(() -> count.get() * 2);
+            runtime.effect(() -> doubled.get());
+
+            count.set(2);
+            count.set(2);
+            doubled.get();
+
+            assertEquals(1, metrics.getRefWrites());
+            assertEquals(1, metrics.getSuppressedWrites());
+            assertEquals(2, metrics.getRecomputes());
+            assertEquals(2, metrics.getEffectRuns());
+            assertTrue(metrics.getCacheHits() >= 1, "The last read should be served from the cache");
+            assertEquals(1, metrics.getPropagations());
+            assertEquals(0, metrics.getThreadsSpawned(), "Lazy values should not spawn threads");
+
+            metrics.reset();
+            assertEquals(0, metrics.getRefWrites());
+            assertEquals(0, metrics.getFanOutHistogram().length);
+        }
+    }
+
+    @Test
+    public void testMetricsAreRegisteredOverJmx() throws Exception {
+        ObjectName objectName;
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            runtime.enableMetrics();
+            runtime.ref(1).set(2);
+
+            objectName = runtime.getMetrics().getObjectName();
+            assertNotNull(objectName);
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "RefWrites"));
+        }
+
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+    }
+
+}
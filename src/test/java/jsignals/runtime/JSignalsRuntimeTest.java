@@ -0,0 +1,233 @@
+package jsignals.runtime;
+
+import jsignals.async.ResourceRef;
+import jsignals.core.ComputedRef;
+import jsignals.core.Ref;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class JSignalsRuntimeTest {
+
+    @Test
+    public void testPrimitivesBelongToTheirRuntime() {
+        try (JSignalsRuntime first = new JSignalsRuntime(); JSignalsRuntime second = new JSignalsRuntime()) {
+            Ref<Integer> a = first.ref(1);
+            Ref<Integer> b = second.ref(1);
+
+            assertSame(first.getTracker(), a.getTracker());
+            assertSame(second.getTracker(), b.getTracker());
+            assertNotSame(a.getTracker(), b.getTracker());
+            assertNotSame(DependencyTracker.getInstance(), a.getTracker());
+        }
+    }
+
+    @Test
+    public void testIsolatedGraphsPropagate() {
+        try (JSignalsRuntime first = new JSignalsRuntime(); JSignalsRuntime second = new JSignalsRuntime()) {
+            Ref<Integer> a = first.ref(1);
+            ComputedRef<Integer> doubledA = first.computed(() -> a.get() * 2);
+            Ref<Integer> b = second.ref(10);
+            List<Integer> seen = new ArrayList<>();
+            second.effect(() -> seen.add(b.get()));
+
+            a.set(2);
+            b.set(20);
+            second.batch(() -> {
+                b.set(30);
+                b.set(40);
+            });
+
+            assertEquals(4, doubledA.get());
+            assertEquals(List.of(10, 20, 40), seen);
+        }
+    }
+
+    @Test
+    public void testDerivedValuesBelongToTheGraphOfTheirSource() {
+        try (JSignalsRuntime runtime = new JSignalsRuntime()) {
+            Ref<Integer> count = runtime.ref(10);
+            Ref<Integer> offset = runtime.ref(1);
+            ComputedRef<Integer> doubled = count.map(x -> x * 2);
+            ComputedRef<Integer> shifted = count.flatMap(x -> offset.map(o -> x + o));
+            Ref<Integer> copy = count.copy();
+            List<Integer> seen = new ArrayList<>();
+            runtime.effect(() -> seen.add(doubled.get()));
+
+            count.set(20);
+            offset.set(2);
+
+            assertSame(runtime.getTracker(), doubled.getTracker());
+            assertSame(runtime.getTracker(), shifted.getTracker());
+            assertSame(runtime.getTracker(), copy.getTracker());
+            assertEquals(40, doubled.get());
+            assertEquals(22, shifted.get());
+            assertEquals(List.of(20, 40), seen);
+        }
+    }
+
+    @Test
+    public void testReadingAnotherGraphThrows() {
+        try (JSignalsRuntime first = new JSignalsRuntime(); JSignalsRuntime second = new JSignalsRuntime()) {
+            Ref<Integer> a = first.ref(1);
+            Ref<Integer> b = second.ref(2);
+
+            assertThrows(IllegalStateException.class, () -> first.computed(() -> a.get() + b.get()));
+            assertEquals(3, first.computed(() -> a.get() + second.untrack(b::get)).get());
+        }
+    }
+
+    @Test
+    public void testClosedRuntimeRejectsNewPrimitives() {
+        JSignalsRuntime runtime = new JSignalsRuntime();
+        runtime.close();
+
+        assertThrows(IllegalStateException.class, () -> runtime.ref(1));
+        assertThrows(IllegalStateException.class, () -> runtime.effect(() -> { }));
+    }
+
+    @Test
+    public void testGracefulCloseAwaitsTasksInFlight() throws InterruptedException {
+        JSignalsRuntime runtime = new JSignalsRuntime();
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> task = runtime.getExecutor().submit(() -> {
+            started.countDown();
+            sleep(50);
+            return "done";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ShutdownReport report = runtime.close(Duration.ofSeconds(5));
+
+        assertTrue(report.isGraceful());
+        assertEquals(1, report.runningAtStart());
+        assertEquals("done", task.join());
+        assertThrows(RejectedExecutionException.class, () -> runtime.getExecutor().execute(() -> { }));
+    }
+
+    @Test
+    public void testGracefulCloseCancelsAfterTimeout() throws InterruptedException {
+        JSignalsRuntime runtime = new JSignalsRuntime();
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        runtime.getExecutor().execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ShutdownReport report = runtime.close(Duration.ofMillis(50));
+
+        assertEquals(1, report.cancelled());
+        assertTrue(report.elapsed().toMillis() < 5_000);
+        runtime.getExecutor().awaitTermination(5, TimeUnit.SECONDS);
+        assertTrue(interrupted.get(), "The task left over should be interrupted");
+    }
+
+    @Test
+    public void testGracefulCloseAwaitsResourceFetchesInFlight() {
+        JSignalsRuntime runtime = new JSignalsRuntime();
+        CompletableFuture<String> response = new CompletableFuture<>();
+        ResourceRef<String> resource = runtime.resource(() -> response);
+        // Completed by a thread of its own, outside of the executor, once the shutdown started
+        Thread.ofPlatform().start(() -> {
+            sleep(200);
+            response.complete("done");
+        });
+
+        ShutdownReport report = runtime.close(Duration.ofSeconds(5));
+
+        assertTrue(report.isGraceful());
+        assertEquals(1, report.runningAtStart());
+        assertTrue(resource.isSuccess(), "The result of the fetch should be applied");
+        assertEquals("done", resource.getData());
+    }
+
+    @Test
+    public void testGracefulCloseCountsEffectsOfTheEffectThread() throws InterruptedException {
+        JSignalsRuntime runtime = new JSignalsRuntime(EffectDispatch.DEDICATED_THREAD);
+        Ref<Integer> first = runtime.ref(0);
+        Ref<Integer> second = runtime.ref(0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        runtime.effect(() -> {
+            if (first.get() > 0) {
+                started.countDown();
+                await(release);
+            }
+        });
+        runtime.effect(second::get);
+
+        first.set(1);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        second.set(1);
+
+        ShutdownReport report = runtime.close(Duration.ofMillis(50));
+        release.countDown();
+
+        assertEquals(1, report.runningAtStart());
+        assertEquals(1, report.queuedAtStart());
+        assertEquals(2, report.cancelled());
+        JSignalsMetrics metrics = runtime.getMetrics();
+        assertFalse(metrics.isShuttingDown());
+        assertEquals(2, metrics.getShutdownTasksAtStart());
+        assertEquals(2, metrics.getShutdownTasksCancelled());
+    }
+
+    @Test
+    public void testGracefulCloseCountsQueuedRecomputations() throws InterruptedException {
+        Partition partition = new Partition("shutdown-test", 0, ExecutionPolicy.unbounded());
+        JSignalsRuntime runtime = partition.getRuntime();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean recomputed = new AtomicBoolean();
+        partition.execute(() -> await(release));
+        runtime.getRecomputeScheduler().execute(() -> recomputed.set(true));
+        runtime.getRecomputeScheduler().execute(() -> recomputed.set(true));
+
+        ShutdownReport report = runtime.close(Duration.ofMillis(50));
+        release.countDown();
+        partition.submit(() -> { }).join();
+        partition.close();
+
+        assertEquals(2, report.queuedAtStart());
+        assertEquals(2, report.cancelled());
+        assertFalse(recomputed.get(), "Cancelled recomputations should not run");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
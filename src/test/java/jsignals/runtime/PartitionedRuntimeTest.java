@@ -0,0 +1,123 @@
+package jsignals.runtime;
+
+import jsignals.async.ResourceRef;
+import jsignals.core.ComputedRef;
+import jsignals.core.Ref;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("core")
+public class PartitionedRuntimeTest {
+
+    @Test
+    public void testKeysArePinnedToPartitions() {
+        try (PartitionedRuntime partitions = new PartitionedRuntime(4)) {
+            assertEquals(4, partitions.getPartitionCount());
+            assertSame(partitions.partitionFor("document-1"), partitions.partitionFor("document-1"));
+            assertSame(partitions.partitionFor(null), partitions.partitionFor(null));
+            assertNotSame(partitions.partition(0).getRuntime().getTracker(),
+                    partitions.partition(1).getRuntime().getTracker());
+        }
+    }
+
+    @Test
+    public void testPropagationRunsOnTheWorker() throws Exception {
+        try (PartitionedRuntime partitions = new PartitionedRuntime(2)) {
+            Partition partition = partitions.partitionFor(42);
+            JSignalsRuntime runtime = partition.getRuntime();
+            List<Boolean> onWorker = new CopyOnWriteArrayList<>();
+            List<Integer> seen = new CopyOnWriteArrayList<>();
+
+            Ref<Integer> count = partition.submit(() -> runtime.ref(1)).get(5, TimeUnit.SECONDS);
+            ComputedRef<Integer> doubled = partition.submit(() -> runtime.computed(() -> count.get() * 2))
+                    .get(5, TimeUnit.SECONDS);
+            partition.submit(() -> runtime.effect(() -> {
+                seen.add(doubled.get());
+                onWorker.add(partition.isWorkerThread());
+            })).get(5, TimeUnit.SECONDS);
+
+            for (int i = 2; i <= 5; i++) {
+                int value = i;
+                partition.execute(() -> count.set(value));
+            }
+            int result = partition.submit(doubled::get).get(5, TimeUnit.SECONDS);
+
+            assertEquals(10, result);
+            assertEquals(List.of(2, 4, 6, 8, 10), seen);
+            assertTrue(onWorker.stream().allMatch(Boolean::booleanValue), "Effects should run on the worker");
+        }
+    }
+
+    @Test
+    public void testDeferredWorkRunsOnTheWorker() throws Exception {
+        try (PartitionedRuntime partitions = new PartitionedRuntime(2)) {
+            Partition partition = partitions.partitionFor(7);
+            JSignalsRuntime runtime = partition.getRuntime();
+            List<Boolean> onWorker = new CopyOnWriteArrayList<>();
+            CountDownLatch asyncRun = new CountDownLatch(1);
+            CountDownLatch debouncedRun = new CountDownLatch(1);
+
+            Ref<Integer> count = partition.submit(() -> runtime.ref(0)).get(5, TimeUnit.SECONDS);
+            partition.submit(() -> {
+                runtime.effect(() -> {
+                    if (count.get() > 0) {
+                        onWorker.add(partition.isWorkerThread());
+                        asyncRun.countDown();
+                    }
+                }, EffectOptions.async());
+                runtime.effect(() -> {
+                    if (count.get() > 0) {
+                        onWorker.add(partition.isWorkerThread());
+                        debouncedRun.countDown();
+                    }
+                }, EffectOptions.debounced(Duration.ofMillis(10)));
+            }).get(5, TimeUnit.SECONDS);
+            partition.execute(() -> count.set(1));
+
+            // Completed off the worker, by a thread of the common pool
+            ResourceRef<String> resource = partition.submit(() -> runtime.resource(
+                    () -> CompletableFuture.supplyAsync(() -> "data"))).get(5, TimeUnit.SECONDS);
+            resource.getRef().watch(state -> onWorker.add(partition.isWorkerThread()));
+            String data = partition.submit(resource::fetch).get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+
+            assertTrue(asyncRun.await(5, TimeUnit.SECONDS));
+            assertTrue(debouncedRun.await(5, TimeUnit.SECONDS));
+            assertEquals("data", data);
+            assertTrue(onWorker.size() >= 3);
+            assertTrue(onWorker.stream().allMatch(Boolean::booleanValue), "Deferred work should run on the worker");
+        }
+    }
+
+    @Test
+    public void testGraphIsConfinedToTheWorker() throws Exception {
+        try (PartitionedRuntime partitions = new PartitionedRuntime(2)) {
+            Partition partition = partitions.partitionFor(3);
+            JSignalsRuntime runtime = partition.getRuntime();
+
+            Ref<Integer> count = partition.submit(() -> runtime.ref(1)).get(5, TimeUnit.SECONDS);
+            ComputedRef<Integer> doubled = partition.submit(() -> runtime.computed(() -> count.get() * 2))
+                    .get(5, TimeUnit.SECONDS);
+
+            assertTrue(runtime.getTracker().isConfined());
+            assertThrows(IllegalStateException.class, () -> count.set(2));
+            assertThrows(IllegalStateException.class, () -> runtime.effect(() -> doubled.get()));
+
+            partition.execute(() -> count.set(3));
+            assertEquals(6, partition.submit(doubled::get).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+}